@@ -1,7 +1,8 @@
 package com.github.mnishimori;
 
+import com.github.mnishimori.api.mapper.BookMapper;
+import com.github.mnishimori.api.mapper.LoanMapper;
 import com.github.mnishimori.domain.mail.EmailService;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -27,8 +28,13 @@ public class LibraryApiApplication extends SpringBootServletInitializer {
     }
 
     @Bean
-    public ModelMapper modelMapper(){
-        return new ModelMapper();
+    public BookMapper bookMapper(){
+        return new BookMapper();
+    }
+
+    @Bean
+    public LoanMapper loanMapper(){
+        return new LoanMapper(bookMapper());
     }
 
     /*
@@ -1,25 +1,48 @@
 package com.github.mnishimori.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.dto.CursorDto;
 import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.api.http.BlockingCalls;
+import com.github.mnishimori.api.http.ConditionalRequests;
+import com.github.mnishimori.api.importer.CsvBookImportReader;
+import com.github.mnishimori.api.importer.JsonBookImportReader;
+import com.github.mnishimori.api.mapper.BookMapper;
 import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookImportResult;
+import com.github.mnishimori.domain.book.BookImportService;
+import com.github.mnishimori.domain.book.BookListVersion;
 import com.github.mnishimori.domain.book.BookService;
 import com.github.mnishimori.domain.loan.Loan;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -29,11 +52,30 @@ import java.util.stream.Collectors;
 @Api("Book API")
 public class BookController {
 
+    private static final int MAX_CURSOR_SIZE = 1000;
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     @Autowired
     private BookService service;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookImportService importService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ConditionalRequests conditionalRequests;
+
+    @Autowired
+    private BlockingCalls blockingCalls;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -41,71 +83,168 @@ public class BookController {
     public BookDto salvar(@RequestBody @Valid BookDto bookDto) {
         log.info("Create a book");
 
-        Book book = modelMapper.map(bookDto, Book.class);
+        Book book = bookMapper.toEntity(bookDto);
 
         book = service.save(book);
 
-        BookDto savedBookDto = modelMapper.map(book, BookDto.class);
+        BookDto savedBookDto = bookMapper.toDto(book);
 
         return savedBookDto;
     }
 
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ApiOperation("Import books from a JSON array or NDJSON")
+    public BookImportResult importJson(InputStream body) throws IOException {
+        log.info("Import books from JSON");
+
+        return importService.importBooks(new JsonBookImportReader(objectMapper, body, bookMapper, validator));
+    }
+
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    @ApiOperation("Import books from CSV")
+    public BookImportResult importCsv(InputStream body) throws IOException {
+        log.info("Import books from CSV");
+
+        return importService.importBooks(new CsvBookImportReader(body, bookMapper, validator));
+    }
+
+
     @GetMapping
     @ApiOperation("List all books")
-    public List<BookDto> listAll(){
+    public ResponseEntity<StreamingResponseBody> listAll(WebRequest request){
         log.info("List all books ");
 
-        List<Book> books = service.listAll();
+        String etag = this.listEtag();
+        if (conditionalRequests.isNotModified(request, "books.list", etag, null)) {
+            return conditionalRequests.notModified(etag);
+        }
+
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                service.streamAll(b -> this.write(writer, generator, b));
+                generator.writeEndArray();
+            }
+        };
+
+        return conditionalRequests.ok(etag, null).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiOperation("Stream all books as NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAll(WebRequest request){
+        log.info("Stream all books ");
+
+        String etag = this.listEtag();
+        if (conditionalRequests.isNotModified(request, "books.stream", etag, null)) {
+            return conditionalRequests.notModified(etag);
+        }
+
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                service.streamAll(b -> {
+                    this.write(writer, generator, b);
+                    this.writeLineSeparator(generator);
+                });
+            }
+        };
+
+        return conditionalRequests.ok(etag, null).contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+
+    @GetMapping("/cursor")
+    @ApiOperation("List books after the given id")
+    public CompletableFuture<CursorDto<BookDto>> listAfter(@RequestParam(defaultValue = "0") Long lastId,
+                                                           @RequestParam(defaultValue = "100") int size){
+        log.info("List books after ID {}", lastId);
+
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_CURSOR_SIZE);
+        }
+
+        return blockingCalls.supply(() -> {
+            List<BookDto> booksDto = service.listAfter(lastId, size)
+                    .stream()
+                    .map(b -> bookMapper.toDto(b))
+                    .collect(Collectors.toList());
 
-        List<BookDto> booksDto = books.stream().map(b -> {
-            return modelMapper.map(b, BookDto.class);
-        }).collect(Collectors.toList());
+            Long nextId = booksDto.size() < size ? null : booksDto.get(booksDto.size() - 1).getId();
 
-        return booksDto;
+            return CursorDto.<BookDto>builder()
+                    .content(booksDto)
+                    .nextId(nextId)
+                    .build();
+        });
     }
 
 
     @GetMapping("{id}")
     @ApiOperation("Get a book by ID")
-    public BookDto getById(@PathVariable Long id) {
+    public ResponseEntity<BookDto> getById(@PathVariable Long id, WebRequest request) {
         log.info("Get a book by ID {}", id);
 
         Book book = service.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-        return modelMapper.map(book, BookDto.class);
+        String etag = ConditionalRequests.etag(book.getId(), book.getVersion());
+        Instant lastModified = book.getUpdatedAt() == null
+                ? null
+                : book.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant();
+
+        if (conditionalRequests.isNotModified(request, "books.get", etag, lastModified)) {
+            return conditionalRequests.notModified(etag);
+        }
+
+        return conditionalRequests.ok(etag, lastModified).body(bookMapper.toDto(book));
     }
 
 
     @GetMapping("/lista-paginada")
     @ApiOperation("Search a book by params")
-    public Page<BookDto> search(BookDto bookDto, Pageable pageable){
+    public CompletableFuture<Page<BookDto>> search(BookDto bookDto, Pageable pageable,
+                                                   @RequestParam(defaultValue = "false") boolean exactTotal){
 
-        Book filter = this.modelMapper.map(bookDto, Book.class);
+        Book filter = this.bookMapper.toEntity(bookDto);
 
-        Page<Book> result = this.service.find(filter, pageable);
+        return blockingCalls.supply(() -> {
+            Page<Book> result = this.service.find(filter, pageable, exactTotal);
 
-        List<BookDto> returnList = result.getContent()
-                .stream()
-                .map( b -> this.modelMapper.map( b, BookDto.class))
-                .collect(Collectors.toList());
+            List<BookDto> returnList = result.getContent()
+                    .stream()
+                    .map( b -> this.bookMapper.toDto(b))
+                    .collect(Collectors.toList());
 
-        return new PageImpl<BookDto>(returnList, pageable, result.getTotalElements());
+            return new PageImpl<BookDto>(returnList, pageable, result.getTotalElements());
+        });
     }
 
     @PutMapping("{id}")
     @ApiOperation("Update a book")
-    public BookDto update(@PathVariable Long id, @RequestBody BookDto bookDto) {
-        return service.getById(id).map(book -> {
-
-            book.setAuthor(bookDto.getAuthor());
-            book.setTitle(bookDto.getTitle());
-            book = service.update(book);
+    public ResponseEntity<BookDto> update(@PathVariable Long id, @RequestBody BookDto bookDto, WebRequest request) {
+        Book current = service.getById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-            return modelMapper.map(book, BookDto.class);
+        // a new instance, so a rejected update leaves the cached book untouched
+        Book book = conditionalRequests.ifMatch(request, id, current.getVersion(), version -> service.update(Book
+                .builder()
+                .id(id)
+                .isbn(current.getIsbn())
+                .title(bookDto.getTitle())
+                .author(bookDto.getAuthor())
+                .version(version)
+                .build()));
 
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ResponseEntity.ok()
+                .eTag(ConditionalRequests.etag(book.getId(), book.getVersion()))
+                .body(bookMapper.toDto(book));
     }
 
     @DeleteMapping("{id}")
@@ -117,4 +256,33 @@ public class BookController {
 
         service.delete(book);
     }
+
+    /**
+     * The listing changes whenever a book is created, updated or deleted, so count, last id and last update together
+     * identify its content without reading it. It has no Last-Modified: a delete does not move any date forward.
+     */
+    private String listEtag() {
+        BookListVersion version = service.getListVersion();
+        long lastUpdated = version.getLastUpdatedAt() == null
+                ? 0
+                : version.getLastUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        return "\"books-" + version.getCount() + "-" + version.getLastId() + "-" + lastUpdated + "\"";
+    }
+
+    private void write(ObjectWriter writer, JsonGenerator generator, Book book) {
+        try {
+            writer.writeValue(generator, bookMapper.toDto(book));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLineSeparator(JsonGenerator generator) {
+        try {
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
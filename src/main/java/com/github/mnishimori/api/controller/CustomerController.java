@@ -0,0 +1,90 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.api.dto.CursorDto;
+import com.github.mnishimori.api.dto.CustomerDto;
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.api.mapper.LoanMapper;
+import com.github.mnishimori.domain.customer.Customer;
+import com.github.mnishimori.domain.customer.CustomerService;
+import com.github.mnishimori.domain.loan.LoanService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/customers")
+@Slf4j
+@Api("Customer API")
+public class CustomerController {
+
+    private static final int MAX_CURSOR_SIZE = 1000;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanMapper loanMapper;
+
+
+    @GetMapping
+    @ApiOperation("Get a customer by email")
+    public CustomerDto getByEmail(@RequestParam String email) {
+        log.info("Get a customer by email");
+
+        Customer customer = customerService.getByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        return this.toDto(customer);
+    }
+
+    @GetMapping("{id}/loans")
+    @ApiOperation("List the loans of a customer after the given loan id")
+    public CursorDto<LoanDto> getLoans(@PathVariable Long id,
+                                       @RequestParam(defaultValue = "0") Long lastId,
+                                       @RequestParam(defaultValue = "100") int size,
+                                       @RequestParam(defaultValue = "false") boolean includeArchived) {
+        log.info("List loans of customer {} after ID {}", id, lastId);
+
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_CURSOR_SIZE);
+        }
+
+        if (!customerService.getById(id).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+
+        List<LoanDto> loansDto = loanService.getLoansByCustomer(id, lastId, size, includeArchived)
+                .stream()
+                .map(l -> loanMapper.toDto(l))
+                .collect(Collectors.toList());
+
+        Long nextId = loansDto.size() < size ? null : loansDto.get(loansDto.size() - 1).getId();
+
+        return CursorDto.<LoanDto>builder()
+                .content(loansDto)
+                .nextId(nextId)
+                .build();
+    }
+
+    private CustomerDto toDto(Customer customer) {
+        return CustomerDto.builder()
+                .id(customer.getId())
+                .email(customer.getEmail())
+                .name(customer.getName())
+                .build();
+    }
+}
@@ -1,30 +1,37 @@
 package com.github.mnishimori.api.controller;
 
-import com.github.mnishimori.api.dto.BookDto;
 import com.github.mnishimori.api.dto.LoanDto;
 import com.github.mnishimori.api.dto.ReturnedLoanDto;
+import com.github.mnishimori.api.http.BlockingCalls;
+import com.github.mnishimori.api.http.ConditionalRequests;
+import com.github.mnishimori.api.mapper.LoanMapper;
 import com.github.mnishimori.domain.book.Book;
 import com.github.mnishimori.domain.book.BookServiceImpl;
 import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanOutcome;
 import com.github.mnishimori.domain.loan.LoanService;
 import io.swagger.annotations.ApiOperation;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/loans")
 public class LoanController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     @Autowired
     private LoanService loanService;
 
@@ -32,7 +39,13 @@ public class LoanController {
     private BookServiceImpl bookService;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private LoanMapper loanMapper;
+
+    @Autowired
+    private ConditionalRequests conditionalRequests;
+
+    @Autowired
+    private BlockingCalls blockingCalls;
 
 
     @PostMapping
@@ -46,52 +59,103 @@ public class LoanController {
                 .builder()
                 .book(book)
                 .customer(loanDto.getCustomer())
+                .customerEmail(loanDto.getCustomerEmail())
                 .loanDate(LocalDate.now())
                 .build();
 
         loan = loanService.save(loan);
 
-        return this.modelMapper.map(loan, LoanDto.class);
+        return this.loanMapper.toDto(loan);
+    }
+
+    @PostMapping("/batch")
+    @ApiOperation("Create a batch of loans")
+    public List<LoanOutcome> createAll(@RequestBody List<LoanDto> loansDto){
+        this.checkBatchSize(loansDto.size());
+
+        LocalDate loanDate = LocalDate.now();
+
+        List<Loan> loans = loansDto
+                .stream()
+                .map(dto -> Loan
+                        .builder()
+                        .book(Book.builder().isbn(dto.getIsbn()).build())
+                        .customer(dto.getCustomer())
+                        .customerEmail(dto.getCustomerEmail())
+                        .loanDate(loanDate)
+                        .build())
+                .collect(Collectors.toList());
+
+        return loanService.checkoutAll(loans);
     }
 
     @GetMapping
-    public Page<LoanDto> find(LoanDto loanDto, Pageable pageRequest) {
-        Loan loan = this.modelMapper.map(loanDto, Loan.class);
+    public CompletableFuture<Page<LoanDto>> find(LoanDto loanDto, Pageable pageRequest,
+                                                 @RequestParam(defaultValue = "false") boolean exactTotal) {
+        Loan loan = this.loanMapper.toEntity(loanDto);
 
-        Page<Loan> result = loanService.find(loan, pageRequest);
+        return blockingCalls.supply(() -> {
+            Page<Loan> result = loanService.find(loan, pageRequest, exactTotal);
 
-        List<LoanDto> loans = result.getContent().stream().map(l -> {
-            LoanDto lDto = modelMapper.map(l, LoanDto.class);
-            lDto.setBookDto(modelMapper.map(l.getBook(), BookDto.class));
-            return lDto;
-        }).collect(Collectors.toList());
+            List<LoanDto> loans = result.getContent()
+                    .stream()
+                    .map(l -> loanMapper.toDto(l))
+                    .collect(Collectors.toList());
 
-        return new PageImpl<LoanDto>(loans, pageRequest, result.getTotalElements());
+            return new PageImpl<LoanDto>(loans, pageRequest, result.getTotalElements());
+        });
     }
 
     @GetMapping("{id}/loans")
     @ApiOperation("Get a list of loans")
-    public Page<LoanDto> loansByBook(@PathVariable Long id, Pageable pageable){
-
-        Page<Loan> loans = loanService.getLoansByBook(Book.builder().id(id).build(), pageable);
+    public CompletableFuture<Page<LoanDto>> loansByBook(@PathVariable Long id, Pageable pageable,
+                                                        @RequestParam(defaultValue = "false") boolean exactTotal,
+                                                        @RequestParam(defaultValue = "false") boolean archived){
+
+        return blockingCalls.supply(() -> {
+            Page<Loan> loans = archived
+                    ? loanService.getArchivedLoansByBook(Book.builder().id(id).build(), pageable)
+                    : loanService.getLoansByBook(Book.builder().id(id).build(), pageable, exactTotal);
+
+            List<LoanDto> loansDtoList = loans
+                    .stream()
+                    .map(l -> loanMapper.toDto(l))
+                    .collect(Collectors.toList());
+
+            return new PageImpl<LoanDto>(loansDtoList, pageable, loans.getTotalElements());
+        });
+    }
 
-        List<LoanDto> loansDtoList = loans.stream().map(l -> {
-            LoanDto loanDto = modelMapper.map(l, LoanDto.class);
-            loanDto.setBookDto(modelMapper.map(l.getBook(), BookDto.class));
-            return loanDto;
-        }).collect(Collectors.toList());
+    @PatchMapping("/batch")
+    @ApiOperation("Return a batch of loans")
+    public List<LoanOutcome> returnAll(@RequestBody List<Long> loanIds){
+        this.checkBatchSize(loanIds.size());
 
-        return new PageImpl<LoanDto>(loansDtoList, pageable, loans.getTotalPages());
+        return loanService.returnAll(loanIds);
     }
 
     @PatchMapping("/{id}")
-    public void returnedBook(@PathVariable Long id, @RequestBody ReturnedLoanDto returnedLoanDto){
+    public ResponseEntity<Void> returnedBook(@PathVariable Long id, @RequestBody ReturnedLoanDto returnedLoanDto,
+                                             WebRequest request){
 
         Loan loan = loanService.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-        loan.setReturned(returnedLoanDto.getReturned());
+        // a new instance: a change to the managed loan would be flushed before the versioned update and void it
+        Loan updatedLoan = conditionalRequests.ifMatch(request, id, loan.getVersion(), version -> loanService.update(Loan
+                .builder()
+                .id(id)
+                .book(loan.getBook() == null ? null : Book.builder().id(loan.getBook().getId()).build())
+                .returned(returnedLoanDto.getReturned())
+                .version(version)
+                .build()));
+
+        return ResponseEntity.ok().eTag(ConditionalRequests.etag(id, updatedLoan.getVersion())).build();
+    }
 
-        loanService.update(loan);
+    private void checkBatchSize(int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
     }
 }
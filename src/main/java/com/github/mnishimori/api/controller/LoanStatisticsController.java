@@ -0,0 +1,64 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.api.dto.LoanStatisticsDto;
+import com.github.mnishimori.domain.book.BookService;
+import com.github.mnishimori.domain.customer.CustomerService;
+import com.github.mnishimori.domain.statistics.LoanCounters;
+import com.github.mnishimori.domain.statistics.LoanStatisticsService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Loan counters read from the statistics tables, one primary key lookup each, instead of counting the loans.
+ */
+@RestController
+@RequestMapping("/api/statistics")
+@Api("Loan statistics API")
+public class LoanStatisticsController {
+
+    @Autowired
+    private LoanStatisticsService statisticsService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CustomerService customerService;
+
+
+    @GetMapping("/books/{id}")
+    @ApiOperation("Get the loan statistics of a book")
+    public LoanStatisticsDto getByBook(@PathVariable Long id) {
+        if (!bookService.getById(id).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+
+        return this.toDto(statisticsService.getByBook(id));
+    }
+
+    @GetMapping("/customers/{id}")
+    @ApiOperation("Get the loan statistics of a customer")
+    public LoanStatisticsDto getByCustomer(@PathVariable Long id) {
+        if (!customerService.getById(id).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+
+        return this.toDto(statisticsService.getByCustomer(id));
+    }
+
+    private LoanStatisticsDto toDto(LoanCounters counters) {
+        return LoanStatisticsDto.builder()
+                .totalLoans(counters.getTotalLoans())
+                .openLoans(counters.getOpenLoans())
+                .overdueLoans(counters.getOverdueLoans())
+                .lastLoanDate(counters.getLastLoanDate())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.mapper.BookMapper;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.reactive.ReactiveBookRepository;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only, non-blocking mirror of the {@code GET} endpoints of {@link BookController}, backed by R2DBC. Listings
+ * requested as NDJSON are streamed one book at a time as the client reads them.
+ */
+@RestController
+@RequestMapping("/api/reactive/books")
+@Slf4j
+@Api("Reactive Book API")
+public class ReactiveBookController {
+
+    @Autowired
+    private ReactiveBookRepository repository;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @ApiOperation("List all books")
+    public Flux<BookDto> listAll(){
+        log.info("List all books reactively");
+
+        return repository.findAll().map(bookMapper::toDto);
+    }
+
+
+    @GetMapping("{id}")
+    @ApiOperation("Get a book by ID")
+    public Mono<BookDto> getById(@PathVariable Long id) {
+        log.info("Get a book by ID {} reactively", id);
+
+        return repository.findById(id)
+                .map(bookMapper::toDto)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+
+    @GetMapping("/lista-paginada")
+    @ApiOperation("Search a book by params")
+    public Mono<Page<BookDto>> search(BookDto bookDto, Pageable pageable){
+        Book filter = this.bookMapper.toEntity(bookDto);
+
+        return repository.find(filter, pageable)
+                .map(bookMapper::toDto)
+                .collectList()
+                .flatMap(books -> ReactivePages.of(books, pageable, () -> repository.count(filter)));
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.api.mapper.LoanMapper;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.reactive.ReactiveLoanRepository;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only, non-blocking mirror of {@link LoanController#find}, backed by R2DBC.
+ */
+@RestController
+@RequestMapping("/api/reactive/loans")
+@Api("Reactive Loan API")
+public class ReactiveLoanController {
+
+    @Autowired
+    private ReactiveLoanRepository repository;
+
+    @Autowired
+    private LoanMapper loanMapper;
+
+
+    @GetMapping
+    @ApiOperation("Search loans by params")
+    public Mono<Page<LoanDto>> find(LoanDto loanDto, Pageable pageRequest) {
+        Loan filter = this.loanMapper.toEntity(loanDto);
+
+        return repository.find(filter, pageRequest)
+                .map(loanMapper::toDto)
+                .collectList()
+                .flatMap(loans -> ReactivePages.of(loans, pageRequest, () -> repository.count(filter)));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.mnishimori.api.controller;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+final class ReactivePages {
+
+    private ReactivePages() {
+    }
+
+    /**
+     * Builds the page, running the count query only when the total can't be told from the content, like
+     * {@code PageableExecutionUtils} does for the blocking endpoints.
+     */
+    static <T> Mono<Page<T>> of(List<T> content, Pageable pageable, Supplier<Mono<Long>> counter) {
+        if (!content.isEmpty() && content.size() < pageable.getPageSize()) {
+            return Mono.just(new PageImpl<>(content, pageable, pageable.getOffset() + content.size()));
+        }
+        if (content.isEmpty() && pageable.getOffset() == 0) {
+            return Mono.just(new PageImpl<>(content, pageable, 0));
+        }
+        return counter.get().map(total -> new PageImpl<>(content, pageable, total));
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.mnishimori.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorDto<T> {
+
+    private List<T> content;
+
+    private Long nextId;
+
+}
@@ -0,0 +1,20 @@
+package com.github.mnishimori.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerDto {
+
+    private Long id;
+
+    private String email;
+
+    private String name;
+
+}
@@ -26,6 +26,8 @@ public class LoanDto {
     @NotEmpty
     private String customerEmail;
 
+    private Long customerId;
+
     private BookDto bookDto;
 
 }
@@ -0,0 +1,24 @@
+package com.github.mnishimori.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatisticsDto {
+
+    private long totalLoans;
+
+    private long openLoans;
+
+    private long overdueLoans;
+
+    private LocalDate lastLoanDate;
+
+}
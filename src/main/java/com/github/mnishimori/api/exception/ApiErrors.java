@@ -25,6 +25,10 @@ public class ApiErrors {
         this.errors = Arrays.asList(ex.getReason());
     }
 
+    public ApiErrors(RuntimeException ex){
+        this.errors = Arrays.asList(ex.getMessage());
+    }
+
     public List<String> getErrors() {
         return errors;
     }
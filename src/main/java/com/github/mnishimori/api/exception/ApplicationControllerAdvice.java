@@ -1,6 +1,9 @@
 package com.github.mnishimori.api.exception;
 
 import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -14,11 +17,26 @@ import javax.persistence.EntityNotFoundException;
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    public static final String BUSINESS_REJECTIONS_METRIC = "library.business.rejections";
+
+    private final MeterRegistry meterRegistry;
+
+    public ApplicationControllerAdvice(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
-    public ApiErrors handleEntityNotFoundException(MethodArgumentNotValidException ex) {
+    public ApiErrors handleEntityNotFoundException(EntityNotFoundException ex) {
 
-        return new ApiErrors(ex.getBindingResult());
+        return new ApiErrors(ex);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+
+        return new ApiErrors(ex);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -32,6 +50,8 @@ public class ApplicationControllerAdvice {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleValidationException(BusinessException ex) {
 
+        meterRegistry.counter(BUSINESS_REJECTIONS_METRIC, "reason", ex.getRejection().getCode()).increment();
+
         return new ApiErrors(ex);
     }
 
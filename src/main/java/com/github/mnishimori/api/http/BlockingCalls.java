@@ -0,0 +1,108 @@
+package com.github.mnishimori.api.http;
+
+import com.github.mnishimori.config.SqlStatementCounter;
+import com.github.mnishimori.config.SqlStatementMetricsFilter;
+import com.github.mnishimori.config.WebExecutionConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking part of an endpoint, the service call and the mapping of its result, so the endpoint can return a
+ * {@link CompletableFuture}. In the {@code offload} mode of {@code library.web.execution.mode}, also used by
+ * {@code virtual} on JVMs without virtual threads, the call runs on a bounded pool and the Tomcat thread is released
+ * while it waits on the database: {@code library.web.execution.offload.threads} calls run at once, up to
+ * {@code queue-capacity} wait for a thread and the rest are answered with 503. In the other modes the call runs on the
+ * request thread and the future is already complete.
+ * <p>
+ * The SQL statements of an offloaded call are added to the request, so {@link SqlStatementMetricsFilter} still counts
+ * them.
+ */
+@Component
+@Slf4j
+public class BlockingCalls implements DisposableBean {
+
+    public static final String OFFLOAD_MODE = "offload";
+
+    private final SqlStatementCounter statementCounter = new SqlStatementCounter();
+
+    private final ThreadPoolTaskExecutor executor;
+
+    public BlockingCalls(@Value("${" + WebExecutionConfig.MODE_PROPERTY + ":platform}") String mode,
+                         @Value("${library.web.execution.offload.threads:10}") int threads,
+                         @Value("${library.web.execution.offload.queue-capacity:1000}") int queueCapacity) {
+        boolean virtualUnavailable = "virtual".equals(mode) && !WebExecutionConfig.newVirtualThreadPerTaskExecutor().isPresent();
+
+        if (OFFLOAD_MODE.equals(mode) || virtualUnavailable) {
+            executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(threads);
+            executor.setMaxPoolSize(threads);
+            executor.setQueueCapacity(queueCapacity);
+            executor.setThreadNamePrefix("request-offload-");
+            executor.initialize();
+            log.info("Blocking calls run on {} offload threads, with up to {} waiting", threads, queueCapacity);
+        } else {
+            executor = null;
+        }
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> call) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(call.get());
+        }
+
+        AtomicLong offloadedStatements = this.offloadedStatements();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long before = statementCounter.count();
+                try {
+                    return call.get();
+                } finally {
+                    if (offloadedStatements != null) {
+                        offloadedStatements.addAndGet(statementCounter.count() - before);
+                    }
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many requests waiting for the database");
+        }
+    }
+
+    public boolean isOffloading() {
+        return executor != null;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private AtomicLong offloadedStatements() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        AtomicLong statements = (AtomicLong) attributes.getAttribute(
+                SqlStatementMetricsFilter.OFFLOADED_STATEMENTS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (statements == null) {
+            statements = new AtomicLong();
+            attributes.setAttribute(SqlStatementMetricsFilter.OFFLOADED_STATEMENTS_ATTRIBUTE, statements,
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.mnishimori.api.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Answers conditional GETs ({@code If-None-Match} / {@code If-Modified-Since}) from the version of a resource, before
+ * its body is loaded or serialized, and adds the validators and {@code Cache-Control} to full responses. Every check
+ * is counted as {@code library.http.conditional}, tagged with the endpoint and whether the client copy was current
+ * ({@code not-modified}) or not ({@code modified}).
+ * <p>
+ * Updates take the version to overwrite from {@code If-Match}, with the ETags built by {@link #etag(Long, Long)}.
+ */
+@Component
+public class ConditionalRequests {
+
+    public static final String CONDITIONAL_METRIC = "library.http.conditional";
+
+    private final CacheControl cacheControl;
+
+    private final MeterRegistry meterRegistry;
+
+    public ConditionalRequests(@Value("${library.http.cache-control.max-age:0s}") Duration maxAge,
+                               MeterRegistry meterRegistry) {
+        // with no max age clients may keep the response but must revalidate it, which costs a 304 when unchanged
+        this.cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param lastModified null when the resource has no reliable modification date, e.g. a listing that can lose items
+     * @return true when the client copy is current and {@link #notModified} should be returned
+     */
+    public boolean isNotModified(WebRequest request, String endpoint, String etag, Instant lastModified) {
+        boolean notModified = lastModified == null
+                ? request.checkNotModified(etag)
+                : request.checkNotModified(etag, lastModified.toEpochMilli());
+
+        meterRegistry.counter(CONDITIONAL_METRIC, "endpoint", endpoint, "result", notModified ? "not-modified" : "modified")
+                .increment();
+        return notModified;
+    }
+
+    public static String etag(Long id, Long version) {
+        return "\"" + id + "." + version + "\"";
+    }
+
+    /**
+     * Runs an update that only succeeds while the resource is still at the version it receives. That version comes
+     * from {@code If-Match}. A mismatch then answers 412 Precondition Failed. Without the header, or with {@code *},
+     * the update gets the version the server just read, and a concurrent write still fails, with 409 Conflict.
+     */
+    public <T> T ifMatch(WebRequest request, Long id, Long currentVersion, Function<Long, T> update) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+
+        if (ifMatch == null) {
+            return update.apply(currentVersion);
+        }
+
+        Long version = this.matchedVersion(ifMatch, id, currentVersion);
+        try {
+            return update.apply(version);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        }
+    }
+
+    public <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    public ResponseEntity.BodyBuilder ok(String etag, Instant lastModified) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl);
+
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response;
+    }
+
+    private Long matchedVersion(String ifMatch, Long id, Long currentVersion) {
+        String prefix = "\"" + id + ".";
+
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return currentVersion;
+            }
+            // weak tags (W/"...") never match, as If-Match uses the strong comparison
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException e) {
+                    // not one of our tags, try the next one
+                }
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match não corresponde ao recurso");
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.mnishimori.api.importer;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.mapper.BookMapper;
+import com.github.mnishimori.domain.book.BookImportRow;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads an import upload one record at a time and validates it the same way {@code POST /api/books} does.
+ * Records that can't be read or don't validate come out as invalid rows instead of aborting the import.
+ */
+public abstract class BookImportReader implements Iterator<BookImportRow> {
+
+    private final BookMapper bookMapper;
+
+    private final Validator validator;
+
+    private long row;
+
+    private BookImportRow next;
+
+    private boolean finished;
+
+    protected BookImportReader(BookMapper bookMapper, Validator validator) {
+        this.bookMapper = bookMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Returns the next record, {@code null} at the end of the input, or throws {@link IllegalArgumentException}
+     * when the record is malformed.
+     */
+    protected abstract BookDto read();
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = this.fetch();
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public BookImportRow next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        BookImportRow current = next;
+        next = null;
+        return current;
+    }
+
+    private BookImportRow fetch() {
+        BookDto bookDto;
+        try {
+            bookDto = this.read();
+        } catch (IllegalArgumentException e) {
+            return BookImportRow.invalid(++row, null, e.getMessage());
+        }
+
+        if (bookDto == null) {
+            return null;
+        }
+
+        row++;
+
+        Set<ConstraintViolation<BookDto>> violations = validator.validate(bookDto);
+        if (!violations.isEmpty()) {
+            String error = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+
+            return BookImportRow.invalid(row, bookDto.getIsbn(), error);
+        }
+
+        return BookImportRow.valid(row, bookMapper.toEntity(bookDto));
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.mnishimori.api.importer;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.mapper.BookMapper;
+import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
+
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads a UTF-8 CSV upload whose header names the {@code title}, {@code author} and {@code isbn} columns, in any
+ * order. Fields may be double-quoted (with {@code ""} as an escaped quote) but can't span lines.
+ */
+public class CsvBookImportReader extends BookImportReader {
+
+    private final BufferedReader reader;
+
+    private final int titleColumn;
+
+    private final int authorColumn;
+
+    private final int isbnColumn;
+
+    public CsvBookImportReader(InputStream input, BookMapper bookMapper, Validator validator) throws IOException {
+        super(bookMapper, validator);
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        String header = this.nextLine();
+        List<String> columns = new ArrayList<>();
+        if (header != null) {
+            for (String column : split(header)) {
+                columns.add(column.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        this.titleColumn = columns.indexOf("title");
+        this.authorColumn = columns.indexOf("author");
+        this.isbnColumn = columns.indexOf("isbn");
+
+        if (titleColumn < 0 || authorColumn < 0 || isbnColumn < 0) {
+            throw new BusinessException(BusinessRejection.INVALID_IMPORT, "O cabeçalho do CSV deve conter as colunas title, author e isbn");
+        }
+    }
+
+    @Override
+    protected BookDto read() {
+        String line;
+        try {
+            line = this.nextLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (line == null) {
+            return null;
+        }
+
+        List<String> fields = split(line);
+
+        return BookDto.builder()
+                .title(field(fields, titleColumn))
+                .author(field(fields, authorColumn))
+                .isbn(field(fields, isbnColumn))
+                .build();
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && line.trim().isEmpty());
+        return line;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < fields.size() ? fields.get(column).trim() : null;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Aspas não fechadas na linha: " + line);
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
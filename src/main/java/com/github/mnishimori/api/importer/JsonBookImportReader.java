@@ -0,0 +1,48 @@
+package com.github.mnishimori.api.importer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.mapper.BookMapper;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Reads either a JSON array of books or NDJSON (one book per line); Jackson's {@link MappingIterator} handles both.
+ */
+public class JsonBookImportReader extends BookImportReader {
+
+    private final MappingIterator<BookDto> values;
+
+    private boolean malformed;
+
+    public JsonBookImportReader(ObjectMapper objectMapper, InputStream input,
+                                BookMapper bookMapper, Validator validator) throws IOException {
+        super(bookMapper, validator);
+        this.values = objectMapper.readerFor(BookDto.class).readValues(input);
+    }
+
+    @Override
+    protected BookDto read() {
+        if (malformed) {
+            return null;
+        }
+
+        try {
+            return values.hasNextValue() ? values.nextValue() : null;
+        } catch (JsonParseException e) {
+            // the parser can't resynchronize after broken syntax, so nothing after this point is read
+            malformed = true;
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        } catch (JsonMappingException e) {
+            throw new IllegalArgumentException("Registro inválido: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.mnishimori.api.mapper;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.domain.book.Book;
+
+public class BookMapper {
+
+    public BookDto toDto(Book book) {
+        if (book == null) {
+            return null;
+        }
+
+        BookDto bookDto = new BookDto();
+        bookDto.setId(book.getId());
+        bookDto.setTitle(book.getTitle());
+        bookDto.setAuthor(book.getAuthor());
+        bookDto.setIsbn(book.getIsbn());
+
+        return bookDto;
+    }
+
+    public Book toEntity(BookDto bookDto) {
+        if (bookDto == null) {
+            return null;
+        }
+
+        Book book = new Book();
+        book.setId(bookDto.getId());
+        book.setTitle(bookDto.getTitle());
+        book.setAuthor(bookDto.getAuthor());
+        book.setIsbn(bookDto.getIsbn());
+
+        return book;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.mnishimori.api.mapper;
+
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.domain.loan.Loan;
+
+public class LoanMapper {
+
+    private final BookMapper bookMapper;
+
+    public LoanMapper(BookMapper bookMapper) {
+        this.bookMapper = bookMapper;
+    }
+
+    public LoanDto toDto(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+
+        LoanDto loanDto = new LoanDto();
+        loanDto.setId(loan.getId());
+        loanDto.setCustomer(loan.getCustomer());
+        loanDto.setCustomerEmail(loan.getCustomerEmail());
+        loanDto.setCustomerId(loan.getCustomerId());
+        loanDto.setBookDto(bookMapper.toDto(loan.getBook()));
+
+        return loanDto;
+    }
+
+    public Loan toEntity(LoanDto loanDto) {
+        if (loanDto == null) {
+            return null;
+        }
+
+        Loan loan = new Loan();
+        loan.setId(loanDto.getId());
+        loan.setCustomer(loanDto.getCustomer());
+        loan.setCustomerEmail(loanDto.getCustomerEmail());
+        loan.setBook(bookMapper.toEntity(loanDto.getBookDto()));
+
+        return loan;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.mnishimori.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times every public method of the domain {@code *ServiceImpl} classes as {@code library.service}, tagged with the
+ * class, method and thrown exception. Repository calls are timed by Spring Boot as
+ * {@code spring.data.repository.invocations}; percentiles for both are configured in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_METRIC = "library.service";
+
+    private static final String SERVICE_POINTCUT = "execution(public * com.github.mnishimori.domain..*ServiceImpl.*(..))";
+
+    @Bean
+    public static Advisor serviceMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(SERVICE_POINTCUT);
+
+        MethodInterceptor interceptor = invocation -> {
+            MeterRegistry registry = meterRegistry.getObject();
+            Timer.Sample sample = Timer.start(registry);
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder(SERVICE_METRIC)
+                        .tag("class", invocation.getThis().getClass().getSimpleName())
+                        .tag("method", invocation.getMethod().getName())
+                        .tag("exception", exception)
+                        .register(registry));
+            }
+        };
+
+        return new DefaultPointcutAdvisor(pointcut, interceptor);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.mnishimori.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Persistence metrics next to the {@code hikaricp.*} pool metrics Spring Boot already publishes (active, idle and
+ * pending connections, acquire time): the SQL statements of each request, see {@link SqlStatementMetricsFilter}, and
+ * the Hibernate statistics as {@code library.hibernate.*}. The statements are counted by {@link SqlStatementCounter},
+ * set as Hibernate's statement inspector in application.properties so the JPA test slices count them too. The
+ * statistics cost bookkeeping on every session, so they are collected and published only with
+ * {@code library.hibernate.statistics.enabled=true}.
+ */
+@Configuration
+public class PersistenceMetricsConfig {
+
+    public static final String HIBERNATE_METRIC_PREFIX = "library.hibernate.";
+
+    public static final String STATEMENT_BUDGET_PROPERTY = "library.http.sql.statement-budget";
+
+    public static final String STATISTICS_PROPERTY = "library.hibernate.statistics.enabled";
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public SqlStatementMetricsFilter sqlStatementMetricsFilter(SqlStatementCounter counter, MeterRegistry meterRegistry,
+                                                               @Value("${" + STATEMENT_BUDGET_PROPERTY + ":0}") int budget) {
+        return new SqlStatementMetricsFilter(counter, meterRegistry, budget);
+    }
+
+    /**
+     * Bound once every singleton exists: a MeterBinder would be asked for while the registry is created, which the
+     * data source needs for the pool metrics before the entity manager factory can exist.
+     */
+    @Bean
+    @ConditionalOnProperty(name = STATISTICS_PROPERTY, havingValue = "true")
+    public SmartInitializingSingleton hibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory,
+                                                                 MeterRegistry registry) {
+        return () -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+            counter(registry, statistics, "sessions", "Sessions opened", Statistics::getSessionOpenCount);
+            counter(registry, statistics, "flushes", "Session flushes", Statistics::getFlushCount);
+            counter(registry, statistics, "statements", "JDBC statements prepared", Statistics::getPrepareStatementCount);
+            counter(registry, statistics, "queries", "HQL and native queries executed", Statistics::getQueryExecutionCount);
+            counter(registry, statistics, "optimistic-failures", "Optimistic lock failures", Statistics::getOptimisticFailureCount);
+
+            entityCounter(registry, statistics, "load", Statistics::getEntityLoadCount);
+            entityCounter(registry, statistics, "fetch", Statistics::getEntityFetchCount);
+            entityCounter(registry, statistics, "insert", Statistics::getEntityInsertCount);
+            entityCounter(registry, statistics, "update", Statistics::getEntityUpdateCount);
+            entityCounter(registry, statistics, "delete", Statistics::getEntityDeleteCount);
+
+            FunctionCounter.builder(HIBERNATE_METRIC_PREFIX + "query-plan-cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                    .description("Query plan cache lookups")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder(HIBERNATE_METRIC_PREFIX + "query-plan-cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                    .description("Query plan cache lookups")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder(HIBERNATE_METRIC_PREFIX + "query-plan-cache.hit-ratio", statistics, PersistenceMetricsConfig::queryPlanHitRatio)
+                    .description("Share of query plan cache lookups that found the plan")
+                    .register(registry);
+        };
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String name, String description,
+                                ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(HIBERNATE_METRIC_PREFIX + name, statistics, count)
+                .description(description)
+                .register(registry);
+    }
+
+    private static void entityCounter(MeterRegistry registry, Statistics statistics, String operation,
+                                      ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(HIBERNATE_METRIC_PREFIX + "entities", statistics, count)
+                .description("Entity operations")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static double queryPlanHitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long lookups = hits + statistics.getQueryPlanCacheMissCount();
+
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.mnishimori.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Points the R2DBC client of the reactive read API at the database the JDBC {@link DataSource} is connected to, so
+ * both stacks see the same embedded H2 even when Spring Boot gives it a generated name. The R2DBC auto-configuration
+ * is excluded in application.properties: a {@code ConnectionFactory} bean would make Spring Boot skip the JDBC
+ * {@code DataSource}, and its transaction manager would replace the JPA one. For the same reason the connection pool
+ * is not a bean of its own and is disposed by this configuration. Writes stay on JPA.
+ */
+@Configuration
+public class R2dbcConfig implements DisposableBean {
+
+    private static final String JDBC_PREFIX = "jdbc:";
+
+    private static final String H2_MEM_PREFIX = "h2:mem:";
+
+    private static final String H2_FILE_PREFIX = "h2:file:";
+
+    private ConnectionPool pool;
+
+    @Bean
+    public DatabaseClient databaseClient(DataSource dataSource, DataSourceProperties dataSourceProperties,
+                                         ReactiveDatabaseProperties properties) throws SQLException {
+        String url = properties.getUrl();
+        if (!StringUtils.hasText(url)) {
+            try (Connection connection = dataSource.getConnection()) {
+                url = toR2dbcUrl(connection.getMetaData().getURL());
+            }
+        }
+
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build();
+
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("library-r2dbc")
+                .initialSize(properties.getInitialSize())
+                .maxSize(properties.getMaxSize())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxAcquireTime(properties.getMaxAcquireTime())
+                .build());
+
+        return DatabaseClient.create(pool);
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+    /**
+     * Turns a JDBC URL into its R2DBC form: {@code jdbc:postgresql://host/db} becomes {@code r2dbc:postgresql://host/db}.
+     * H2 URLs carry no authority, so {@code jdbc:h2:mem:name;OPTIONS} becomes
+     * {@code r2dbc:h2:mem:///name?options=OPTIONS}.
+     */
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (!jdbcUrl.startsWith(JDBC_PREFIX)) {
+            throw new IllegalStateException("Not a JDBC URL: " + jdbcUrl);
+        }
+        String url = jdbcUrl.substring(JDBC_PREFIX.length());
+
+        String h2Prefix = url.startsWith(H2_MEM_PREFIX) ? H2_MEM_PREFIX : url.startsWith(H2_FILE_PREFIX) ? H2_FILE_PREFIX : null;
+        if (h2Prefix == null) {
+            return "r2dbc:" + url;
+        }
+
+        String database = url.substring(h2Prefix.length());
+        String options = null;
+        int separator = database.indexOf(';');
+        if (separator >= 0) {
+            options = database.substring(separator + 1);
+            database = database.substring(0, separator);
+        }
+
+        String r2dbcUrl = "r2dbc:" + h2Prefix + "///" + database;
+        return StringUtils.hasText(options) ? r2dbcUrl + "?options=" + encode(options) : r2dbcUrl;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
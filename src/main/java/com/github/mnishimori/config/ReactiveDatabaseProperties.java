@@ -0,0 +1,30 @@
+package com.github.mnishimori.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.r2dbc")
+public class ReactiveDatabaseProperties {
+
+    /**
+     * R2DBC URL of the reactive read API. When empty it is derived from the URL of the JDBC {@code DataSource}.
+     */
+    private String url;
+
+    private int initialSize = 2;
+
+    /**
+     * Upper bound of open R2DBC connections, kept separate from the Hikari pool of the JPA side.
+     */
+    private int maxSize = 10;
+
+    private Duration maxIdleTime = Duration.ofMinutes(30);
+
+    private Duration maxAcquireTime = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,27 @@
+package com.github.mnishimori.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on each thread. The count only grows, so a caller measures a piece of
+ * work by the difference between {@link #count()} before and after it, and measurements can be nested. Hibernate
+ * creates its own instance from {@code hibernate.session_factory.statement_inspector}; the count is kept per thread,
+ * not per instance, so any instance reads it.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * @return the statements prepared so far on the current thread
+     */
+    public long count() {
+        return STATEMENTS.get()[0];
+    }
+}
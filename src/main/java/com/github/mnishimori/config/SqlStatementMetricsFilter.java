@@ -0,0 +1,86 @@
+package com.github.mnishimori.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the SQL statements of every request as {@code library.http.sql.statements}, tagged like
+ * {@code http.server.requests} with the method and the uri pattern. An asynchronous request is recorded once, when
+ * its last dispatch ends, with the statements of every dispatch plus those an offloaded call added to
+ * {@link #OFFLOADED_STATEMENTS_ATTRIBUTE}. Statements of a streamed body run on another thread and are not counted.
+ * With a positive {@code budget}, a request that runs more statements is logged as a warning, which points at an N+1
+ * or a repeated count without failing the request.
+ */
+@Slf4j
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_METRIC = "library.http.sql.statements";
+
+    public static final String OFFLOADED_STATEMENTS_ATTRIBUTE =
+            SqlStatementMetricsFilter.class.getName() + ".OFFLOADED";
+
+    private static final String DISPATCHED_STATEMENTS_ATTRIBUTE =
+            SqlStatementMetricsFilter.class.getName() + ".DISPATCHED";
+
+    private final SqlStatementCounter counter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int budget;
+
+    public SqlStatementMetricsFilter(SqlStatementCounter counter, MeterRegistry meterRegistry, int budget) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = counter.count();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Long dispatched = (Long) request.getAttribute(DISPATCHED_STATEMENTS_ATTRIBUTE);
+            long statements = counter.count() - before + (dispatched == null ? 0 : dispatched);
+
+            if (this.isAsyncStarted(request)) {
+                request.setAttribute(DISPATCHED_STATEMENTS_ATTRIBUTE, statements);
+            } else {
+                AtomicLong offloaded = (AtomicLong) request.getAttribute(OFFLOADED_STATEMENTS_ATTRIBUTE);
+                this.record(request, statements + (offloaded == null ? 0 : offloaded.get()));
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, long statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+
+        DistributionSummary.builder(STATEMENTS_METRIC)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+
+        if (budget > 0 && statements > budget) {
+            log.warn("{} {} ran {} SQL statements, over the budget of {}",
+                    request.getMethod(), uri, statements, budget);
+        }
+    }
+}
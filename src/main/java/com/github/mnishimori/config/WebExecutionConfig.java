@@ -0,0 +1,51 @@
+package com.github.mnishimori.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Chooses the threads Tomcat runs requests on, through {@code library.web.execution.mode}. {@code platform} (the
+ * default) keeps Tomcat's own pool, sized by {@code server.tomcat.threads.max}. {@code offload} keeps it too, but the
+ * blocking endpoints hand their database work to the bounded pool of
+ * {@link com.github.mnishimori.api.http.BlockingCalls} and release the Tomcat thread meanwhile. {@code virtual} runs
+ * every request on a new virtual thread, so a request blocked on JDBC no longer holds a pool thread and concurrency is
+ * bounded by the connection pool instead. Virtual threads need JDK 21 or later: the executor is looked up by
+ * reflection because the code still targets Java 8, and on older JVMs the {@code offload} mode is used instead.
+ */
+@Configuration
+@Slf4j
+public class WebExecutionConfig {
+
+    public static final String MODE_PROPERTY = "library.web.execution.mode";
+
+    @Bean
+    @ConditionalOnProperty(name = MODE_PROPERTY, havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequestExecutor() {
+        return protocolHandler -> {
+            Optional<ExecutorService> executor = newVirtualThreadPerTaskExecutor();
+            if (executor.isPresent()) {
+                protocolHandler.setExecutor(executor.get());
+                log.info("Tomcat requests run on virtual threads");
+            } else {
+                log.warn("{}=virtual needs JDK 21 or later, offloading blocking calls instead on Java {}",
+                        MODE_PROPERTY, System.getProperty("java.specification.version"));
+            }
+        };
+    }
+
+    public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
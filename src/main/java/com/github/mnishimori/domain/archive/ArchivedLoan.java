@@ -0,0 +1,74 @@
+package com.github.mnishimori.domain.archive;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A returned loan moved to the archive table by {@link LoanArchiver}. It keeps the id it had in the loan table, rows
+ * are only written by the archiver and never change afterwards.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "loan_archive")
+public class ArchivedLoan {
+
+    @Id
+    private Long id;
+
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column(name = "id_customer")
+    private Long customerId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_book")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Book book;
+
+    private LocalDate loanDate;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    private Boolean returned;
+
+    @Column(name = "overdue_notified")
+    private Boolean overdueNotified;
+
+    private Long version;
+
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+
+    public Loan toLoan() {
+        return Loan.builder()
+                .id(id)
+                .customer(customer)
+                .customerEmail(customerEmail)
+                .customerId(customerId)
+                .book(book)
+                .loanDate(loanDate)
+                .dueDate(dueDate)
+                .returned(returned)
+                .overdueNotified(overdueNotified)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.mnishimori.domain.archive;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+
+    /**
+     * Copies the given loans to the archive with one statement, the caller deletes them from the loan table.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into loan_archive (id, customer, customer_email, id_customer, id_book, " +
+            "loan_date, due_date, returned, overdue_notified, version, archived_at) " +
+            "select l.id, l.customer, l.customer_email, l.id_customer, l.id_book, " +
+            "l.loan_date, l.due_date, l.returned, l.overdue_notified, l.version, :archivedAt " +
+            "from loan l where l.id in (:loanIds)")
+    int archive(@Param("loanIds") Collection<Long> loanIds, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Query(value = "select l from ArchivedLoan l join fetch l.book where l.book.id = :bookId",
+            countQuery = "select count(l.id) from ArchivedLoan l where l.book.id = :bookId")
+    Page<ArchivedLoan> findByBook(@Param("bookId") Long bookId, Pageable pageable);
+
+    @Query(value = "select l from ArchivedLoan l join fetch l.book where l.customerId = :customerId and l.id > :lastId order by l.id")
+    List<ArchivedLoan> findByCustomerAfter(@Param("customerId") Long customerId, @Param("lastId") Long lastId, Pageable pageable);
+}
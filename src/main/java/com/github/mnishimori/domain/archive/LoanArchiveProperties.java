@@ -0,0 +1,28 @@
+package com.github.mnishimori.domain.archive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.loans.archive")
+public class LoanArchiveProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Returned loans made longer ago than this are archived.
+     */
+    private Duration retention = Duration.ofDays(365);
+
+    private int batchSize = 500;
+
+    /**
+     * Pause between two batches of the same run, so the archiver never keeps the database busy for long.
+     */
+    private Duration pause = Duration.ofMillis(200);
+
+}
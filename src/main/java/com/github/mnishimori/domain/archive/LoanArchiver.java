@@ -0,0 +1,116 @@
+package com.github.mnishimori.domain.archive;
+
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves returned loans older than {@code retention} from the loan table to loan_archive, so the open-loan checks,
+ * late-loan scans and loan searches only go through recent loans. Each batch is copied and deleted in its own short
+ * transaction, and the run pauses between batches to leave room for the requests.
+ */
+@Component
+@Slf4j
+public class LoanArchiver {
+
+    private final LoanRepository loanRepository;
+
+    private final ArchivedLoanRepository archivedLoanRepository;
+
+    private final LoanArchiveProperties properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter archivedCounter;
+
+    private final Timer runTimer;
+
+    public LoanArchiver(LoanRepository loanRepository,
+                        ArchivedLoanRepository archivedLoanRepository,
+                        LoanArchiveProperties properties,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.loanRepository = loanRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.archivedCounter = meterRegistry.counter("library.loans.archive.loans");
+        this.runTimer = meterRegistry.timer("library.loans.archive.run");
+    }
+
+
+    @Scheduled(cron = "${library.loans.archive.cron:0 30 3 * * ?}")
+    public void archiveOldLoans() {
+        if (properties.isEnabled()) {
+            runTimer.record(this::archive);
+        }
+    }
+
+    /**
+     * Archives every returned loan made before the retention period and returns how many were moved.
+     */
+    public int archive() {
+        LocalDate before = LocalDate.now().minusDays(properties.getRetention().toDays());
+        int archived = 0;
+
+        int candidates;
+        do {
+            int[] batch = transactionTemplate.execute(status -> this.archiveBatch(before));
+            candidates = batch[0];
+            archived += batch[1];
+        } while (candidates == properties.getBatchSize() && this.pause());
+
+        if (archived > 0) {
+            log.info("Archived {} loans returned before {}", archived, before);
+        }
+        return archived;
+    }
+
+    /**
+     * @return the number of loans found and the number of loans archived, fewer when some were opened again meanwhile
+     */
+    private int[] archiveBatch(LocalDate before) {
+        List<Long> ids = loanRepository.findArchivableIds(before, PageRequest.of(0, properties.getBatchSize()));
+        if (ids.isEmpty()) {
+            return new int[] {0, 0};
+        }
+
+        // locks the loans, so one opened again in the meantime stays in the loan table
+        List<Long> archivable = loanRepository.findArchivableForUpdate(ids, before)
+                .stream()
+                .map(Loan::getId)
+                .collect(Collectors.toList());
+
+        if (!archivable.isEmpty()) {
+            archivedLoanRepository.archive(archivable, LocalDateTime.now());
+            loanRepository.deleteAllByIds(archivable);
+            archivedCounter.increment(archivable.size());
+        }
+        return new int[] {ids.size(), archivable.size()};
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPause().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Loan archiving interrupted, the remaining loans are archived on the next run");
+            return false;
+        }
+    }
+}
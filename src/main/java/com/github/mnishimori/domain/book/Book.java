@@ -1,14 +1,18 @@
 package com.github.mnishimori.domain.book;
 
-import com.github.mnishimori.domain.loan.Loan;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
+/**
+ * A book has no collection of its loans: the history of a popular book runs into thousands of rows, which equals,
+ * hashCode and toString would load. Loans of a book are read in pages through {@code LoanService.getLoansByBook}.
+ */
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,7 +22,8 @@ import java.util.List;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -27,7 +32,20 @@ public class Book {
 
     private String isbn;
 
-    @OneToMany(mappedBy = "book")
-    private List<Loan> loans;
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private Boolean available = true;
 
+    @Version
+    private Long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        // keeps the value in memory equal to the one read back, whatever the precision of the column
+        updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
 }
@@ -0,0 +1,19 @@
+package com.github.mnishimori.domain.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportError {
+
+    private long row;
+
+    private String isbn;
+
+    private String message;
+}
@@ -0,0 +1,27 @@
+package com.github.mnishimori.domain.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResult {
+
+    private long rows;
+
+    private long imported;
+
+    private long failed;
+
+    private List<BookImportError> errors;
+
+    private long elapsedMillis;
+
+    private double rowsPerSecond;
+}
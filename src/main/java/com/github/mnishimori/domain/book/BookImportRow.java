@@ -0,0 +1,32 @@
+package com.github.mnishimori.domain.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One record read from an import file: either a book ready to be inserted or the reason it couldn't be read.
+ */
+@Data
+@AllArgsConstructor
+public class BookImportRow {
+
+    private long row;
+
+    private String isbn;
+
+    private Book book;
+
+    private String error;
+
+    public static BookImportRow valid(long row, Book book) {
+        return new BookImportRow(row, book.getIsbn(), book, null);
+    }
+
+    public static BookImportRow invalid(long row, String isbn, String error) {
+        return new BookImportRow(row, isbn, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.mnishimori.domain.book;
+
+import java.util.Iterator;
+
+public interface BookImportService {
+
+    BookImportResult importBooks(Iterator<BookImportRow> rows);
+}
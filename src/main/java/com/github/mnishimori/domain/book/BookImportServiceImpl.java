@@ -0,0 +1,147 @@
+package com.github.mnishimori.domain.book;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports books in chunks: each chunk checks its ISBNs against the database with a single query and is inserted
+ * in its own transaction, so the JDBC driver can batch the inserts and the persistence context never grows past
+ * one chunk.
+ */
+@Service
+@Slf4j
+public class BookImportServiceImpl implements BookImportService {
+
+    private final BookRepository repository;
+
+    private final BookSearchIndex searchIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final int maxErrors;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookImportServiceImpl(BookRepository repository,
+                                 BookSearchIndex searchIndex,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${library.books.import.chunk-size:500}") int chunkSize,
+                                 @Value("${library.books.import.max-errors:1000}") int maxErrors) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public BookImportResult importBooks(Iterator<BookImportRow> rows) {
+        long start = System.nanoTime();
+
+        BookImportResult result = BookImportResult.builder().errors(new ArrayList<>()).build();
+
+        List<BookImportRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+
+            if (chunk.size() == chunkSize) {
+                this.importChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            this.importChunk(chunk, result);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setRowsPerSecond(result.getRows() * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1L, elapsedNanos));
+
+        log.info("Imported {} of {} books in {} ms ({} rows/s)",
+                result.getImported(), result.getRows(), result.getElapsedMillis(), (long) result.getRowsPerSecond());
+
+        return result;
+    }
+
+    private void importChunk(List<BookImportRow> chunk, BookImportResult result) {
+        result.setRows(result.getRows() + chunk.size());
+
+        List<BookImportRow> candidates = new ArrayList<>(chunk.size());
+        for (BookImportRow row : chunk) {
+            if (row.isValid()) {
+                candidates.add(row);
+            } else {
+                this.reject(result, row, row.getError());
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> existingIsbns = repository.findExistingIsbns(
+                candidates.stream().map(BookImportRow::getIsbn).collect(Collectors.toSet()));
+
+        Set<String> chunkIsbns = new HashSet<>();
+        List<Book> books = new ArrayList<>(candidates.size());
+        List<BookImportRow> accepted = new ArrayList<>(candidates.size());
+        for (BookImportRow row : candidates) {
+            if (existingIsbns.contains(row.getIsbn()) || !chunkIsbns.add(row.getIsbn())) {
+                this.reject(result, row, "Isbn já cadastrado");
+            } else {
+                row.getBook().setId(null);
+                books.add(row.getBook());
+                accepted.add(row);
+            }
+        }
+
+        if (books.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(books);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        } catch (DataAccessException e) {
+            log.warn("Book import chunk rejected", e);
+            accepted.forEach(row -> this.reject(result, row, "Lote rejeitado: " + e.getMostSpecificCause().getMessage()));
+            return;
+        }
+
+        books.forEach(searchIndex::index);
+        result.setImported(result.getImported() + books.size());
+    }
+
+    private void reject(BookImportResult result, BookImportRow row, String message) {
+        result.setFailed(result.getFailed() + 1);
+
+        if (result.getErrors().size() < maxErrors) {
+            result.getErrors().add(BookImportError.builder()
+                    .row(row.getRow())
+                    .isbn(row.getIsbn())
+                    .message(message)
+                    .build());
+        }
+    }
+}
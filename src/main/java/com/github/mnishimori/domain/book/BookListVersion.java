@@ -0,0 +1,26 @@
+package com.github.mnishimori.domain.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Summary of the book table that changes whenever a book is created (count and last id), updated (last update) or
+ * deleted (count), used to tell whether a listing of all books is still current.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookListVersion {
+
+    private long count;
+
+    private Long lastId;
+
+    private LocalDateTime lastUpdatedAt;
+
+}
@@ -1,12 +1,82 @@
 package com.github.mnishimori.domain.book;
 
+import com.github.mnishimori.domain.pagination.ExampleContentRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface BookRepository extends JpaRepository<Book, Long>, ExampleContentRepository<Book> {
+
+    String CACHE_BY_ID = "books";
+
+    String CACHE_BY_ISBN = "booksByIsbn";
 
     boolean existsByIsbn(String isbn);
 
+    @Query(value = "select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Override
+    @Cacheable(cacheNames = CACHE_BY_ID, unless = "#result == null")
+    Optional<Book> findById(Long id);
+
+    @Cacheable(cacheNames = CACHE_BY_ISBN, unless = "#result == null")
     Optional<Book> findByIsbn(String isbn);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(value = "select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long lastId, Pageable pageable);
+
+    @Query(value = "select new com.github.mnishimori.domain.book.BookListVersion(count(b), max(b.id), max(b.updatedAt)) from Book b")
+    BookListVersion getListVersion();
+
+    @Modifying
+    @Query(value = "update Book b set b.title = :title, b.author = :author, b.updatedAt = :updatedAt, " +
+            "b.version = b.version + 1 where b.id = :id and b.version = :version")
+    int updateDetails(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+                      @Param("author") String author, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query(value = "update Book b set b.available = false where b.id = :id and b.available = true")
+    int checkout(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update Book b set b.available = true where b.id = :id and not exists " +
+            "(select l.id from Loan l where l.book.id = :id and l.returned = false)")
+    int checkin(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select b from Book b where b.isbn in :isbns")
+    List<Book> findAllByIsbnForUpdate(@Param("isbns") Collection<String> isbns);
+
+    @Modifying
+    @Query(value = "update Book b set b.available = false where b.id in :ids and b.available = true")
+    int checkoutAll(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "update Book b set b.available = true where b.id in :ids and not exists " +
+            "(select l.id from Loan l where l.book = b and l.returned = false)")
+    int checkinAll(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,250 @@
+package com.github.mnishimori.domain.book;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory trigram index over title, author and isbn. Answers the same
+ * case-insensitive "contains" searches as the query-by-example in
+ * {@link BookServiceImpl#find}, returning ids ranked by how well they match.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+
+    private static final String TITLE = "t:";
+
+    private static final String AUTHOR = "a:";
+
+    private static final String ISBN = "i:";
+
+    private final Map<Long, IndexedBook> books = new HashMap<>();
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        this.ready = true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            books.clear();
+            postings.clear();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+
+        IndexedBook indexedBook = new IndexedBook(
+                book.getId(), normalize(book.getTitle()), normalize(book.getAuthor()), normalize(book.getIsbn()));
+
+        lock.writeLock().lock();
+        try {
+            this.removePostings(books.put(indexedBook.id, indexedBook));
+            this.addPostings(TITLE, indexedBook.title, indexedBook.id);
+            this.addPostings(AUTHOR, indexedBook.author, indexedBook.id);
+            this.addPostings(ISBN, indexedBook.isbn, indexedBook.id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            this.removePostings(books.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of every book matching all the non-empty criteria, best matches first:
+     * an exact field match scores above a prefix match, which scores above a plain "contains".
+     */
+    public List<Long> search(String title, String author, String isbn) {
+        String titleQuery = normalize(title);
+        String authorQuery = normalize(author);
+        String isbnQuery = normalize(isbn);
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            candidates = this.narrow(candidates, TITLE, titleQuery);
+            candidates = this.narrow(candidates, AUTHOR, authorQuery);
+            candidates = this.narrow(candidates, ISBN, isbnQuery);
+
+            Collection<IndexedBook> candidateBooks = candidates == null ? books.values() : this.lookup(candidates);
+
+            Map<Long, Integer> scores = new HashMap<>();
+            for (IndexedBook book : candidateBooks) {
+                int titleScore = score(book.title, titleQuery);
+                int authorScore = score(book.author, authorQuery);
+                int isbnScore = score(book.isbn, isbnQuery);
+
+                if (titleScore >= 0 && authorScore >= 0 && isbnScore >= 0) {
+                    scores.put(book.id, titleScore + authorScore + isbnScore);
+                }
+            }
+
+            return scores.entrySet()
+                    .stream()
+                    .sorted(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue)
+                            .reversed()
+                            .thenComparing(Map.Entry::getKey))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> narrow(Set<Long> candidates, String field, String query) {
+        if (query == null || query.length() < GRAM_SIZE) {
+            return candidates;
+        }
+
+        Set<Long> result = candidates;
+        for (String gram : grams(query)) {
+            Set<Long> ids = postings.getOrDefault(field + gram, Collections.emptySet());
+
+            if (result == null) {
+                result = new HashSet<>(ids);
+            } else {
+                result.retainAll(ids);
+            }
+
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    private List<IndexedBook> lookup(Set<Long> ids) {
+        List<IndexedBook> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(books.get(id));
+        }
+        return result;
+    }
+
+    private void addPostings(String field, String value, Long id) {
+        for (String gram : grams(value)) {
+            postings.computeIfAbsent(field + gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removePostings(IndexedBook book) {
+        if (book == null) {
+            return;
+        }
+
+        this.removePostings(TITLE, book.title, book.id);
+        this.removePostings(AUTHOR, book.author, book.id);
+        this.removePostings(ISBN, book.isbn, book.id);
+    }
+
+    private void removePostings(String field, String value, Long id) {
+        for (String gram : grams(value)) {
+            Set<Long> ids = postings.get(field + gram);
+
+            if (ids != null) {
+                ids.remove(id);
+
+                if (ids.isEmpty()) {
+                    postings.remove(field + gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String value) {
+        if (value == null || value.length() < GRAM_SIZE) {
+            return Collections.emptySet();
+        }
+
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static int score(String value, String query) {
+        if (query == null) {
+            return 0;
+        }
+        if (value == null || !value.contains(query)) {
+            return -1;
+        }
+        if (value.equals(query)) {
+            return 3;
+        }
+        return value.startsWith(query) ? 2 : 1;
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class IndexedBook {
+
+        private final Long id;
+
+        private final String title;
+
+        private final String author;
+
+        private final String isbn;
+
+        private IndexedBook(Long id, String title, String author, String isbn) {
+            this.id = id;
+            this.title = title;
+            this.author = author;
+            this.isbn = isbn;
+        }
+    }
+}
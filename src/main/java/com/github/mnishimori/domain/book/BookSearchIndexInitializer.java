@@ -0,0 +1,31 @@
+package com.github.mnishimori.domain.book;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class BookSearchIndexInitializer {
+
+    private final BookService bookService;
+
+    private final BookSearchIndex searchIndex;
+
+    public BookSearchIndexInitializer(BookService bookService, BookSearchIndex searchIndex) {
+        this.bookService = bookService;
+        this.searchIndex = searchIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+
+        searchIndex.clear();
+        bookService.streamAll(searchIndex::index);
+        searchIndex.markReady();
+
+        log.info("Book search index built with {} books in {} ms", searchIndex.size(), System.currentTimeMillis() - start);
+    }
+}
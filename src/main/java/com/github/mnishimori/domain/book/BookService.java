@@ -7,6 +7,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
 
@@ -14,6 +15,12 @@ public interface BookService {
 
     List<Book> listAll();
 
+    void streamAll(Consumer<Book> action);
+
+    BookListVersion getListVersion();
+
+    List<Book> listAfter(Long lastId, int size);
+
     Optional<Book> getById(Long id);
 
     void delete(Book book);
@@ -22,5 +29,7 @@ public interface BookService {
 
     Page<Book> find(Book any, Pageable pageRequest);
 
+    Page<Book> find(Book any, Pageable pageRequest, boolean exactTotal);
+
     Optional<Book> getBookByIsbn(String isbn);
 }
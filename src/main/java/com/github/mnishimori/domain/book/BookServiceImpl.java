@@ -1,37 +1,67 @@
 package com.github.mnishimori.domain.book;
 
 import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
 import com.github.mnishimori.domain.loan.Loan;
 import com.github.mnishimori.domain.loan.LoanService;
+import com.github.mnishimori.domain.pagination.PageCountCache;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookServiceImpl implements BookService {
 
     private BookRepository repository;
 
-    public BookServiceImpl(BookRepository repository) {
+    private BookSearchIndex searchIndex;
+
+    private PageCountCache pageCountCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BookServiceImpl(BookRepository repository, BookSearchIndex searchIndex, PageCountCache pageCountCache) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.pageCountCache = pageCountCache;
     }
 
     @Override
     public Book save(Book book) {
 
         if (repository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("Isbn já cadastrado");
+            throw new BusinessException(BusinessRejection.ISBN_ALREADY_REGISTERED, "Isbn já cadastrado");
         }
 
-        return repository.save(book);
+        Book savedBook = repository.save(book);
+
+        searchIndex.index(savedBook);
+
+        return savedBook;
     }
 
     @Override
@@ -40,6 +70,30 @@ public class BookServiceImpl implements BookService {
         return repository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Book> action) {
+
+        try (Stream<Book> books = repository.streamAll()) {
+            books.forEach(book -> {
+                action.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Override
+    public BookListVersion getListVersion() {
+
+        return repository.getListVersion();
+    }
+
+    @Override
+    public List<Book> listAfter(Long lastId, int size) {
+
+        return repository.findByIdGreaterThanOrderByIdAsc(lastId == null ? 0L : lastId, PageRequest.of(0, size));
+    }
+
     @Override
     public Optional<Book> getById(Long id) {
 
@@ -47,36 +101,123 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BookRepository.CACHE_BY_ID, key = "#book.id"),
+            @CacheEvict(cacheNames = BookRepository.CACHE_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
+    })
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
         }
 
         repository.delete(book);
+
+        searchIndex.remove(book.getId());
     }
 
+    /**
+     * Writes title and author with a single update that only matches the version the book was read at, so there is no
+     * select before the write and a concurrent change is reported instead of overwritten. The cached book is also
+     * evicted before the update, so a client that got a conflict reads the current version on its next attempt.
+     */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BookRepository.CACHE_BY_ID, key = "#book.id", beforeInvocation = true,
+                    condition = "#book?.id != null"),
+            @CacheEvict(cacheNames = BookRepository.CACHE_BY_ID, key = "#book.id"),
+            @CacheEvict(cacheNames = BookRepository.CACHE_BY_ISBN, key = "#book.isbn", condition = "#book.isbn != null")
+    })
     public Book update(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
         }
+        if (book.getVersion() == null) {
+            throw new IllegalArgumentException("Book version can't be null");
+        }
+
+        book.touch();
 
-        return repository.save(book);
+        int updated = repository.updateDetails(
+                book.getId(), book.getVersion(), book.getTitle(), book.getAuthor(), book.getUpdatedAt());
+
+        if (updated == 0) {
+            if (!repository.existsById(book.getId())) {
+                throw new EntityNotFoundException("Livro não encontrado");
+            }
+            throw new OptimisticLockingFailureException("Livro alterado por outra requisição");
+        }
+
+        book.setVersion(book.getVersion() + 1);
+
+        searchIndex.index(book);
+
+        return book;
     }
 
     @Override
     public Page<Book> find(Book book, Pageable pageRequest) {
 
+        return this.find(book, pageRequest, true);
+    }
+
+    @Override
+    public Page<Book> find(Book book, Pageable pageRequest, boolean exactTotal) {
+
+        if (this.canSearchIndex(book, pageRequest)) {
+            return this.findInIndex(book, pageRequest);
+        }
+
+        // available is set on every new Book, version and updatedAt by the persistence layer: none of them filters
         Example<Book> example = Example.of(book, ExampleMatcher.matching()
                 .withIgnoreCase()
                 .withIgnoreNullValues()
+                .withIgnorePaths("available", "version", "updatedAt")
                 .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
 
-        return repository.findAll(example, pageRequest);
+        if (exactTotal) {
+            return repository.findAll(example, pageRequest);
+        }
+
+        String countKey = PageCountCache.key("book", book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+
+        return pageCountCache.getPage(
+                repository.findContent(example, pageRequest), pageRequest, countKey, () -> repository.count(example));
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
         return repository.findByIsbn(isbn);
     }
+
+    private boolean canSearchIndex(Book book, Pageable pageRequest) {
+        boolean hasTextFilter = StringUtils.hasLength(book.getTitle())
+                || StringUtils.hasLength(book.getAuthor())
+                || StringUtils.hasLength(book.getIsbn());
+
+        return searchIndex.isReady()
+                && hasTextFilter
+                && book.getId() == null
+                && pageRequest.isPaged()
+                && pageRequest.getSort().isUnsorted();
+    }
+
+    private Page<Book> findInIndex(Book book, Pageable pageRequest) {
+        List<Long> ids = searchIndex.search(book.getTitle(), book.getAuthor(), book.getIsbn());
+
+        int from = (int) Math.min(pageRequest.getOffset(), ids.size());
+        int to = Math.min(from + pageRequest.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+
+        Map<Long, Book> books = repository.findAllById(pageIds)
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<Book> content = pageIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(content, pageRequest, ids.size());
+    }
 }
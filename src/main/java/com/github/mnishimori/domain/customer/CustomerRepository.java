@@ -0,0 +1,14 @@
+package com.github.mnishimori.domain.customer;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    Optional<Customer> findByEmail(String email);
+
+    List<Customer> findByEmailIn(Collection<String> emails);
+}
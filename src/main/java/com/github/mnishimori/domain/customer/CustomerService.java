@@ -0,0 +1,24 @@
+package com.github.mnishimori.domain.customer;
+
+import com.github.mnishimori.domain.loan.Loan;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface CustomerService {
+
+    Optional<Customer> getById(Long id);
+
+    /**
+     * Exact lookup by the normalized email, see {@link Customer#normalizeEmail(String)}.
+     */
+    Optional<Customer> getByEmail(String email);
+
+    /**
+     * Sets the customer id of every loan with an email, registering the customers seen for the first time. Looks up
+     * all the emails with one query and inserts the new customers in one batch, committed on its own so concurrent
+     * loans of a new customer share the same customer instead of failing on its unique email. Meant to be called
+     * before the loans' transaction starts: inside it, the insert would take a second connection from the pool.
+     */
+    void assignCustomers(Collection<Loan> loans);
+}
@@ -0,0 +1,112 @@
+package com.github.mnishimori.domain.customer;
+
+import com.github.mnishimori.domain.loan.Loan;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    /**
+     * Each conflict means another loan registered one of the customers, so a few attempts are enough even when
+     * several loans register the same batch of customers at once.
+     */
+    private static final int MAX_REGISTER_ATTEMPTS = 3;
+
+    private CustomerRepository repository;
+
+    private TransactionTemplate newCustomersTransaction;
+
+    public CustomerServiceImpl(CustomerRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.newCustomersTransaction = new TransactionTemplate(transactionManager);
+        this.newCustomersTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public Optional<Customer> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Optional<Customer> getByEmail(String email) {
+        String normalizedEmail = Customer.normalizeEmail(email);
+
+        return normalizedEmail == null ? Optional.empty() : repository.findByEmail(normalizedEmail);
+    }
+
+    @Override
+    public void assignCustomers(Collection<Loan> loans) {
+        Map<String, String> namesByEmail = new LinkedHashMap<>();
+        for (Loan loan : loans) {
+            String email = Customer.normalizeEmail(loan.getCustomerEmail());
+            if (email != null) {
+                namesByEmail.putIfAbsent(email, loan.getCustomer());
+            }
+        }
+
+        if (namesByEmail.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> customerIds = this.findIds(namesByEmail.keySet());
+
+        for (int attempt = 1; customerIds.size() < namesByEmail.size(); attempt++) {
+            List<Customer> newCustomers = namesByEmail.entrySet()
+                    .stream()
+                    .filter(entry -> !customerIds.containsKey(entry.getKey()))
+                    .map(entry -> Customer.builder().email(entry.getKey()).name(entry.getValue()).build())
+                    .collect(Collectors.toList());
+
+            try {
+                this.register(newCustomers).forEach(customer -> customerIds.put(customer.getEmail(), customer.getId()));
+            } catch (DataIntegrityViolationException e) {
+                // another loan registered some of them meanwhile: they are read again and the rest registered again
+                if (attempt == MAX_REGISTER_ATTEMPTS) {
+                    throw e;
+                }
+                customerIds.putAll(this.findIds(newCustomers
+                        .stream()
+                        .map(Customer::getEmail)
+                        .collect(Collectors.toList())));
+            }
+        }
+
+        for (Loan loan : loans) {
+            String email = Customer.normalizeEmail(loan.getCustomerEmail());
+            if (email != null) {
+                loan.setCustomerId(customerIds.get(email));
+            }
+        }
+    }
+
+    /**
+     * The new customers are committed on their own, before the loans: a concurrent loan with the same email then
+     * fails on the unique email index without rolling back its own transaction and reads the committed customer.
+     * A customer registered for a loan that is rejected afterwards is kept, as it would be by the next loan.
+     */
+    private List<Customer> register(List<Customer> customers) {
+        return newCustomersTransaction.execute(status -> {
+            List<Customer> saved = repository.saveAll(customers);
+            repository.flush();
+            return saved;
+        });
+    }
+
+    private Map<String, Long> findIds(Collection<String> emails) {
+        Map<String, Long> ids = new HashMap<>();
+        repository.findByEmailIn(emails).forEach(customer -> ids.put(customer.getEmail(), customer.getId()));
+        return ids;
+    }
+}
@@ -1,7 +1,15 @@
 package com.github.mnishimori.domain.exception;
 
 public class BusinessException extends RuntimeException {
-    public BusinessException(String message) {
+
+    private final BusinessRejection rejection;
+
+    public BusinessException(BusinessRejection rejection, String message) {
         super(message);
+        this.rejection = rejection;
+    }
+
+    public BusinessRejection getRejection() {
+        return rejection;
     }
 }
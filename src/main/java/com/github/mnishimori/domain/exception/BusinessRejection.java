@@ -0,0 +1,26 @@
+package com.github.mnishimori.domain.exception;
+
+/**
+ * Why a {@link BusinessException} rejected a request. The code tags the rejection metric, so it is a fixed set of
+ * values instead of the message, which may carry request input.
+ */
+public enum BusinessRejection {
+
+    ISBN_ALREADY_REGISTERED("isbn-already-registered"),
+
+    BOOK_ALREADY_LOANED("book-already-loaned"),
+
+    INVALID_IMPORT("invalid-import"),
+
+    UNSUPPORTED_SORT("unsupported-sort");
+
+    private final String code;
+
+    BusinessRejection(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
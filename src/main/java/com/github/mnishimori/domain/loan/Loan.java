@@ -4,7 +4,9 @@ import com.github.mnishimori.domain.book.Book;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -18,7 +20,8 @@ import java.time.LocalDate;
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
     private String customer;
@@ -26,11 +29,40 @@ public class Loan {
     @Column(name = "customer_email")
     private String customerEmail;
 
-    @ManyToOne
+    // the customer the email resolves to, see CustomerService.assignCustomers
+    @Column(name = "id_customer")
+    private Long customerId;
+
+    // kept out of equals, hashCode and toString, so they don't load the lazy book
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_book")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Book book;
 
     private LocalDate loanDate;
 
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(nullable = false)
     private Boolean returned;
+
+    @Column(name = "overdue_notified", nullable = false)
+    private Boolean overdueNotified;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void defaultFlags() {
+        // left null on purpose until written: a null field is ignored when a Loan is used as a query-by-example probe
+        if (returned == null) {
+            returned = false;
+        }
+        if (overdueNotified == null) {
+            overdueNotified = false;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.github.mnishimori.domain.loan;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the number of open and late loans. Both gauges are read from the database when the registry is
+ * scraped, so their cost is one count query per scrape.
+ */
+@Component
+public class LoanMetrics {
+
+    public static final String OPEN_LOANS_METRIC = "library.loans.open";
+
+    public static final String LATE_LOANS_METRIC = "library.loans.late";
+
+    public LoanMetrics(LoanService loanService, MeterRegistry meterRegistry) {
+        Gauge.builder(OPEN_LOANS_METRIC, loanService, LoanService::countOpenLoans)
+                .description("Loans not returned yet")
+                .register(meterRegistry);
+
+        Gauge.builder(LATE_LOANS_METRIC, loanService, LoanService::countLateLoans)
+                .description("Loans not returned past the loan period")
+                .register(meterRegistry);
+    }
+}
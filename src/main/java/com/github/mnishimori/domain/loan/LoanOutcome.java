@@ -0,0 +1,28 @@
+package com.github.mnishimori.domain.loan;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of one item of a batch checkout or return.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanOutcome {
+
+    private Long loanId;
+
+    private String isbn;
+
+    private boolean success;
+
+    private String error;
+
+    public static LoanOutcome failed(Long loanId, String isbn, String error) {
+        return new LoanOutcome(loanId, isbn, false, error);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.mnishimori.domain.loan;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.loans")
+public class LoanProperties {
+
+    private int loanDays = 4;
+
+}
@@ -1,19 +1,78 @@
 package com.github.mnishimori.domain.loan;
 
-import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.pagination.ExampleContentRepository;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, ExampleContentRepository<Loan> {
 
-    @Query(value = " select case when ( count(l.id) > 0 ) then true else false end as valor from Loan l where (l.returned is null or l.returned = false) and l.book = :book ")
-    Boolean existsByBookAndNotReturned( @Param("book") Book book );
+    String BOOK = "book";
 
-    @Query(value = "select l from Loan l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned = false) ")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+    @Override
+    @EntityGraph(attributePaths = BOOK)
+    <S extends Loan> Page<S> findAll(Example<S> example, Pageable pageable);
+
+    @Modifying
+    @Query(value = "update Loan l set l.returned = true, l.version = l.version + 1 where l.id in :ids")
+    int returnAll(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select count(l.id) from Loan l where l.returned = false")
+    long countOpenLoans();
+
+    @Query(value = "select count(l.id) from Loan l where l.dueDate <= :today and l.returned = false")
+    long countLateLoans(@Param("today") LocalDate today);
+
+    @Query(value = "select l from Loan l where l.dueDate <= :today and l.returned = false and l.overdueNotified = false " +
+            "and l.id > :lastId order by l.id")
+    List<Loan> findNewlyOverdueAfter(@Param("today") LocalDate today, @Param("lastId") Long lastId, Pageable pageable);
+
+    // walks ix_loan_customer_id (id_customer, id), the book comes in the same select
+    @Query(value = "select l from Loan l join fetch l.book where l.customerId = :customerId and l.id > :lastId order by l.id")
+    List<Loan> findByCustomerAfter(@Param("customerId") Long customerId, @Param("lastId") Long lastId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l from Loan l where l.id in :ids")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l from Loan l where l.id in :ids and l.returned = false and l.overdueNotified = false")
+    List<Loan> findNotNotifiedForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Only matches when the loan is at the given version and changes state, so an update that returns 1 is a real
+     * transition and the loan row stays locked until the transaction ends.
+     */
+    @Modifying
+    @Query(value = "update Loan l set l.returned = :returned, l.version = l.version + 1 " +
+            "where l.id = :id and l.version = :version and l.returned <> :returned")
+    int updateReturned(@Param("id") Long id, @Param("returned") Boolean returned, @Param("version") Long version);
+
+    // oldest first: every batch the archiver moves out is no longer matched by the next one
+    @Query(value = "select l.id from Loan l where l.returned = true and l.loanDate < :before order by l.loanDate, l.id")
+    List<Long> findArchivableIds(@Param("before") LocalDate before, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select l from Loan l where l.id in :ids and l.returned = true and l.loanDate < :before")
+    List<Loan> findArchivableForUpdate(@Param("ids") Collection<Long> ids, @Param("before") LocalDate before);
+
+    @Modifying
+    @Query(value = "delete from Loan l where l.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "update Loan l set l.overdueNotified = true where l.id in :ids")
+    int markOverdueNotified(@Param("ids") Collection<Long> ids);
 }
@@ -4,6 +4,7 @@ import com.github.mnishimori.domain.book.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,9 +15,31 @@ public interface LoanService {
 
     Loan update(Loan loan);
 
+    List<LoanOutcome> checkoutAll(List<Loan> loans);
+
+    List<LoanOutcome> returnAll(List<Long> loanIds);
+
     Page<Loan> find(Loan loan, Pageable pageable);
 
-    List<Loan> getAllLateLoans();
+    Page<Loan> find(Loan loan, Pageable pageable, boolean exactTotal);
+
+    List<Loan> getNewlyOverdueLoans(Long lastId, int size);
+
+    void markOverdueNotified(Collection<Long> loanIds);
+
+    long countOpenLoans();
+
+    long countLateLoans();
 
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
+
+    Page<Loan> getLoansByBook(Book book, Pageable pageable, boolean exactTotal);
+
+    /**
+     * Archived loans are only read when asked for: they are merged with the others by id, so the keyset pages stay
+     * in order across both tables.
+     */
+    List<Loan> getLoansByCustomer(Long customerId, Long lastId, int size, boolean includeArchived);
+
+    Page<Loan> getArchivedLoansByBook(Book book, Pageable pageable);
 }
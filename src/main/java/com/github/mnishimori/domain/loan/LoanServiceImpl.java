@@ -1,20 +1,41 @@
 package com.github.mnishimori.domain.loan;
 
+import com.github.mnishimori.domain.archive.ArchivedLoan;
+import com.github.mnishimori.domain.archive.ArchivedLoanRepository;
 import com.github.mnishimori.domain.book.Book;
 import com.github.mnishimori.domain.book.BookRepository;
 import com.github.mnishimori.domain.book.BookService;
+import com.github.mnishimori.domain.customer.CustomerService;
 import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
+import com.github.mnishimori.domain.pagination.PageCountCache;
+import com.github.mnishimori.domain.statistics.LoanStatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
@@ -23,17 +44,52 @@ public class LoanServiceImpl implements LoanService {
 
     private BookRepository bookRepository;
 
-    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository) {
+    private PageCountCache pageCountCache;
+
+    private LoanProperties properties;
+
+    private LoanStatisticsService statisticsService;
+
+    private CustomerService customerService;
+
+    private ArchivedLoanRepository archivedRepository;
+
+    private TransactionTemplate checkoutTransaction;
+
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository, PageCountCache pageCountCache,
+                           LoanProperties properties, LoanStatisticsService statisticsService,
+                           CustomerService customerService, ArchivedLoanRepository archivedRepository,
+                           PlatformTransactionManager transactionManager) {
         this.repository = repository;
         this.bookRepository = bookRepository;
+        this.pageCountCache = pageCountCache;
+        this.properties = properties;
+        this.statisticsService = statisticsService;
+        this.customerService = customerService;
+        this.archivedRepository = archivedRepository;
+        this.checkoutTransaction = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * The customer is resolved before the transaction that claims the book starts: registering a new customer
+     * commits on its own, which inside the checkout would hold a second connection while the book stays locked.
+     */
     @Override
     public Loan save(Loan loan) {
-        if (repository.existsByBookAndNotReturned(loan.getBook())){
-            throw new BusinessException("Book already loaned");
-        }
-        return repository.save(loan);
+        customerService.assignCustomers(Collections.singletonList(loan));
+
+        return checkoutTransaction.execute(status -> {
+            if (bookRepository.checkout(loan.getBook().getId()) == 0){
+                throw new BusinessException(BusinessRejection.BOOK_ALREADY_LOANED, "Book already loaned");
+            }
+            this.scheduleDueDate(loan);
+
+            Loan savedLoan = repository.save(loan);
+
+            statisticsService.loansOpened(Collections.singletonList(savedLoan.getId()));
+
+            return savedLoan;
+        });
     }
 
     @Override
@@ -41,42 +97,272 @@ public class LoanServiceImpl implements LoanService {
         return repository.findById(id);
     }
 
+    /**
+     * Writes the returned flag, the only field a loan changes after it is made, with a single update that only
+     * matches the version the loan was read at: no select before the write and a concurrent change is reported
+     * instead of overwritten. A loan already in the requested state is left as it is. Returning a loan releases its
+     * book, opening it again claims the book back and is rejected when the book is out on another loan.
+     */
     @Override
+    @Transactional
     public Loan update(Loan loan) {
+        if (loan == null || loan.getId() == null) {
+            throw new IllegalArgumentException("Loan id can't be null");
+        }
+        if (loan.getVersion() == null) {
+            throw new IllegalArgumentException("Loan version can't be null");
+        }
+
+        if (repository.updateReturned(loan.getId(), loan.getReturned(), loan.getVersion()) == 0) {
+            Loan current = repository.findById(loan.getId())
+                    .orElseThrow(() -> new EntityNotFoundException("Empréstimo não encontrado"));
+
+            if (!current.getVersion().equals(loan.getVersion())) {
+                throw new OptimisticLockingFailureException("Empréstimo alterado por outra requisição");
+            }
+            return current;
+        }
+
+        loan.setVersion(loan.getVersion() + 1);
 
-        return repository.save(loan);
+        if (Boolean.TRUE.equals(loan.getReturned())) {
+            statisticsService.loansReturned(Collections.singletonList(loan.getId()));
+
+            if (loan.getBook() != null) {
+                bookRepository.checkin(loan.getBook().getId());
+            }
+        } else {
+            // the book is claimed again, or the whole update rolls back when another loan took it meanwhile
+            if (loan.getBook() != null && bookRepository.checkout(loan.getBook().getId()) == 0) {
+                throw new BusinessException(BusinessRejection.BOOK_ALREADY_LOANED, "Book already loaned");
+            }
+
+            statisticsService.loansReopened(Collections.singletonList(loan.getId()));
+        }
+
+        return loan;
+    }
+
+    /**
+     * Checks out every loan whose book (referenced by isbn) exists and is available. The books are looked up and
+     * locked with one query, claimed with one update and the loans are inserted in batches, all in one transaction.
+     * The customers are resolved before it starts, as on {@link #save(Loan)}, so the customer of a rejected loan is
+     * registered as well.
+     */
+    @Override
+    public List<LoanOutcome> checkoutAll(List<Loan> loans) {
+        customerService.assignCustomers(loans);
+
+        return checkoutTransaction.execute(status -> this.checkout(loans));
+    }
+
+    private List<LoanOutcome> checkout(List<Loan> loans) {
+        Set<String> isbns = loans.stream()
+                .map(this::isbnOf)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, Book> books = isbns.isEmpty()
+                ? Collections.emptyMap()
+                : bookRepository.findAllByIsbnForUpdate(isbns)
+                        .stream()
+                        .collect(Collectors.toMap(Book::getIsbn, Function.identity(), (first, second) -> first));
+
+        List<LoanOutcome> outcomes = new ArrayList<>(loans.size());
+        List<Loan> accepted = new ArrayList<>();
+        List<LoanOutcome> acceptedOutcomes = new ArrayList<>();
+        Set<Long> bookIds = new HashSet<>();
+
+        for (Loan loan : loans) {
+            String isbn = this.isbnOf(loan);
+            Book book = isbn == null ? null : books.get(isbn);
+
+            if (book == null) {
+                outcomes.add(LoanOutcome.failed(null, isbn, "Book not found for passed isbn"));
+            } else if (!Boolean.TRUE.equals(book.getAvailable()) || !bookIds.add(book.getId())) {
+                outcomes.add(LoanOutcome.failed(null, isbn, "Book already loaned"));
+            } else {
+                loan.setBook(book);
+                this.scheduleDueDate(loan);
+                accepted.add(loan);
+
+                LoanOutcome outcome = LoanOutcome.builder().isbn(isbn).success(true).build();
+                acceptedOutcomes.add(outcome);
+                outcomes.add(outcome);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            bookRepository.checkoutAll(bookIds);
+            repository.saveAll(accepted);
+
+            for (int i = 0; i < accepted.size(); i++) {
+                acceptedOutcomes.get(i).setLoanId(accepted.get(i).getId());
+            }
+
+            statisticsService.loansOpened(accepted.stream().map(Loan::getId).collect(Collectors.toList()));
+        }
+
+        return outcomes;
+    }
+
+    /**
+     * Returns every open loan among the given ids with one lookup, which locks them, one update of the loans and one
+     * update that releases their books.
+     */
+    @Override
+    @Transactional
+    public List<LoanOutcome> returnAll(List<Long> loanIds) {
+        Set<Long> ids = loanIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, Loan> loans = ids.isEmpty()
+                ? Collections.emptyMap()
+                : repository.findAllByIdForUpdate(ids)
+                        .stream()
+                        .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+        List<LoanOutcome> outcomes = new ArrayList<>(loanIds.size());
+        Set<Long> returning = new HashSet<>();
+        Set<Long> bookIds = new HashSet<>();
+
+        for (Long id : loanIds) {
+            Loan loan = id == null ? null : loans.get(id);
+
+            if (loan == null) {
+                outcomes.add(LoanOutcome.failed(id, null, "Loan not found"));
+            } else if (Boolean.TRUE.equals(loan.getReturned()) || !returning.add(id)) {
+                outcomes.add(LoanOutcome.failed(id, null, "Loan already returned"));
+            } else {
+                bookIds.add(loan.getBook().getId());
+                outcomes.add(LoanOutcome.builder().loanId(id).success(true).build());
+            }
+        }
+
+        if (!returning.isEmpty()) {
+            statisticsService.loansReturned(returning);
+            repository.returnAll(returning);
+            bookRepository.checkinAll(bookIds);
+        }
+
+        return outcomes;
     }
 
     @Override
     public Page<Loan> find(Loan loan, Pageable pageable) {
+        return this.find(loan, pageable, true);
+    }
+
+    @Override
+    public Page<Loan> find(Loan loan, Pageable pageable, boolean exactTotal) {
         Example<Loan> example = Example.of(loan, ExampleMatcher
                 .matching()
                 .withIgnoreCase()
                 .withIgnoreNullValues()
+                .withIgnorePaths("book.available", "book.version", "book.updatedAt")
                 .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING ));
 
-        return repository.findAll(example, pageable);
+        if (exactTotal) {
+            return repository.findAll(example, pageable);
+        }
+
+        Long bookId = loan.getBook() == null ? null : loan.getBook().getId();
+        String countKey = PageCountCache.key("loan", loan.getId(), loan.getCustomer(), loan.getCustomerEmail(),
+                bookId, loan.getLoanDate(), loan.getReturned());
+
+        return pageCountCache.getPage(
+                repository.findContent(example, pageable, LoanRepository.BOOK), pageable, countKey, () -> repository.count(example));
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
+    public List<Loan> getNewlyOverdueLoans(Long lastId, int size) {
+        return repository.findNewlyOverdueAfter(LocalDate.now(), lastId == null ? 0L : lastId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional
+    public void markOverdueNotified(Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) {
+            return;
+        }
 
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
+        // locks the loans, so one returned in the meantime is neither flagged nor counted as overdue
+        List<Long> overdue = repository.findNotNotifiedForUpdate(loanIds)
+                .stream()
+                .map(Loan::getId)
+                .collect(Collectors.toList());
+
+        if (!overdue.isEmpty()) {
+            statisticsService.loansOverdue(overdue);
+            repository.markOverdueNotified(overdue);
+        }
+    }
+
+    @Override
+    public long countOpenLoans() {
+        return repository.countOpenLoans();
+    }
 
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+    @Override
+    public long countLateLoans() {
+        return repository.countLateLoans(LocalDate.now());
     }
 
     @Override
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
+        return this.getLoansByBook(book, pageable, true);
+    }
+
+    @Override
+    public Page<Loan> getLoansByBook(Book book, Pageable pageable, boolean exactTotal) {
         Book bookFound = bookRepository
                 .findById(book.getId()).
                 orElseThrow(() -> new EntityNotFoundException("Livro não encontrado"));
 
         Loan loanFilter = Loan.builder()
-                .book(bookFound)
+                .book(Book.builder().id(bookFound.getId()).build())
                 .build();
 
-        return this.find(loanFilter, pageable);
+        return this.find(loanFilter, pageable, exactTotal);
+    }
+
+    @Override
+    public List<Loan> getLoansByCustomer(Long customerId, Long lastId, int size, boolean includeArchived) {
+        Long afterId = lastId == null ? 0L : lastId;
+        List<Loan> loans = repository.findByCustomerAfter(customerId, afterId, PageRequest.of(0, size));
+        if (!includeArchived) {
+            return loans;
+        }
+
+        // by id, so a loan archived between the two reads is listed once
+        TreeMap<Long, Loan> merged = new TreeMap<>();
+        loans.forEach(l -> merged.put(l.getId(), l));
+        archivedRepository.findByCustomerAfter(customerId, afterId, PageRequest.of(0, size))
+                .forEach(l -> merged.putIfAbsent(l.getId(), l.toLoan()));
+
+        return merged.values()
+                .stream()
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<Loan> getArchivedLoansByBook(Book book, Pageable pageable) {
+        Book bookFound = bookRepository
+                .findById(book.getId())
+                .orElseThrow(() -> new EntityNotFoundException("Livro não encontrado"));
+
+        return archivedRepository.findByBook(bookFound.getId(), pageable).map(ArchivedLoan::toLoan);
+    }
+
+    private String isbnOf(Loan loan) {
+        return loan.getBook() == null ? null : loan.getBook().getIsbn();
+    }
+
+    private void scheduleDueDate(Loan loan) {
+        if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+            loan.setDueDate(loan.getLoanDate().plusDays(properties.getLoanDays()));
+        }
     }
 }
@@ -0,0 +1,223 @@
+package com.github.mnishimori.domain.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email outbox on its own threads, so SMTP latency never holds a request or the Spring scheduler.
+ * Messages are claimed in batches by flipping them from PENDING to SENDING under a claim token, at most
+ * {@code workers} batches are sent at the same time, and failed messages go back to PENDING with an exponential
+ * backoff until {@code max-attempts} is reached. Delivery is at least once: a message claimed by a dispatcher that
+ * stopped before recording the outcome is released after {@code claim-timeout} and sent again.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    public static final String MESSAGES_METRIC = "library.mail.outbox.messages";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository repository;
+
+    private final EmailService emailService;
+
+    private final EmailOutboxProperties properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService poller;
+
+    private final Counter sentCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    private final Timer batchTimer;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository repository,
+                                 EmailService emailService,
+                                 EmailOutboxProperties properties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.emailService = emailService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = this.createExecutor(properties.getWorkers());
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> this.daemon(runnable, "mail-outbox-poller"));
+
+        this.sentCounter = meterRegistry.counter(MESSAGES_METRIC, "result", "sent");
+        this.retriedCounter = meterRegistry.counter(MESSAGES_METRIC, "result", "retried");
+        this.failedCounter = meterRegistry.counter(MESSAGES_METRIC, "result", "failed");
+        this.batchTimer = meterRegistry.timer("library.mail.outbox.batch");
+
+        Gauge.builder("library.mail.outbox.pending", repository, outbox -> outbox.countByStatus(EmailOutboxStatus.PENDING))
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isEnabled()) {
+            long interval = properties.getPollInterval().toMillis();
+            poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * Sends every message due now and returns how many were handled, delivered or not.
+     */
+    public int dispatch() {
+        LocalDateTime claimedBefore = LocalDateTime.now().minus(properties.getClaimTimeout());
+        Integer released = transactionTemplate.execute(status -> repository.releaseStaleClaims(claimedBefore));
+        if (released != null && released > 0) {
+            log.warn("Released {} outbox messages left in SENDING", released);
+        }
+
+        int handled = 0;
+        boolean drained = false;
+        while (!drained) {
+            List<CompletableFuture<Integer>> batches = new ArrayList<>(properties.getWorkers());
+
+            while (batches.size() < properties.getWorkers()) {
+                List<EmailOutbox> batch = this.claim();
+                if (!batch.isEmpty()) {
+                    batches.add(CompletableFuture.supplyAsync(() -> batchTimer.record(() -> this.deliver(batch)), executor));
+                }
+                if (batch.size() < properties.getBatchSize()) {
+                    drained = true;
+                    break;
+                }
+            }
+
+            for (CompletableFuture<Integer> batch : batches) {
+                handled += batch.join();
+            }
+        }
+        return handled;
+    }
+
+    private void poll() {
+        try {
+            int handled = this.dispatch();
+            if (handled > 0) {
+                log.info("Dispatched {} outbox messages", handled);
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the periodic task
+            log.error("Could not dispatch the email outbox", e);
+        }
+    }
+
+    private List<EmailOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = repository.findDueIds(now, PageRequest.of(0, properties.getBatchSize()));
+            if (ids.isEmpty()) {
+                return Collections.<EmailOutbox>emptyList();
+            }
+
+            String token = UUID.randomUUID().toString();
+            repository.claim(ids, token, now);
+            return repository.findByClaimToken(token);
+        });
+    }
+
+    private int deliver(List<EmailOutbox> batch) {
+        Map<Long, String> failures = this.send(batch);
+
+        List<Long> sent = batch.stream()
+                .map(EmailOutbox::getId)
+                .filter(id -> !failures.containsKey(id))
+                .collect(Collectors.toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                repository.markSent(sent, now);
+            }
+            if (!failures.isEmpty()) {
+                repository.findAllById(failures.keySet()).forEach(message -> this.reschedule(message, failures.get(message.getId()), now));
+            }
+        });
+
+        sentCounter.increment(sent.size());
+        return batch.size();
+    }
+
+    private Map<Long, String> send(List<EmailOutbox> batch) {
+        try {
+            return emailService.send(batch);
+        } catch (RuntimeException e) {
+            log.warn("Could not send {} outbox messages", batch.size(), e);
+            return batch.stream().collect(Collectors.toMap(EmailOutbox::getId, message -> String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void reschedule(EmailOutbox message, String error, LocalDateTime now) {
+        message.setAttempts(message.getAttempts() + 1);
+        message.setClaimToken(null);
+        message.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (message.getAttempts() >= properties.getMaxAttempts()) {
+            message.setStatus(EmailOutboxStatus.FAILED);
+            failedCounter.increment();
+            log.error("Giving up on outbox message {} after {} attempts", message.getId(), message.getAttempts());
+            return;
+        }
+
+        message.setStatus(EmailOutboxStatus.PENDING);
+        message.setNextAttemptAt(now.plus(properties.getBackoff().multipliedBy(1L << (message.getAttempts() - 1))));
+        retriedCounter.increment();
+    }
+
+    private ThreadPoolExecutor createExecutor(int workers) {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        // never more than `workers` batches are in flight, so the queue stays short
+        return new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> this.daemon(runnable, "mail-outbox-sender-" + threadCount.incrementAndGet()));
+    }
+
+    private Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
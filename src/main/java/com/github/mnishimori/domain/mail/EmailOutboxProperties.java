@@ -0,0 +1,28 @@
+package com.github.mnishimori.domain.mail;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.mail.outbox")
+public class EmailOutboxProperties {
+
+    private boolean enabled = true;
+
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    private int batchSize = 50;
+
+    private int workers = 4;
+
+    private int maxAttempts = 5;
+
+    private Duration backoff = Duration.ofSeconds(30);
+
+    private Duration claimTimeout = Duration.ofMinutes(5);
+
+}
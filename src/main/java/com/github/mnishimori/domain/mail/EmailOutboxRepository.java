@@ -0,0 +1,51 @@
+package com.github.mnishimori.domain.mail;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    @Query(value = "select o.id from EmailOutbox o " +
+            "where o.status = com.github.mnishimori.domain.mail.EmailOutboxStatus.PENDING and o.nextAttemptAt <= :now " +
+            "order by o.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims the given messages for one dispatcher: only rows still pending are taken, so a message selected by two
+     * dispatchers at the same time ends up with a single claim token.
+     */
+    @Modifying
+    @Query(value = "update EmailOutbox o " +
+            "set o.status = com.github.mnishimori.domain.mail.EmailOutboxStatus.SENDING, o.claimToken = :token, o.claimedAt = :now " +
+            "where o.id in :ids and o.status = com.github.mnishimori.domain.mail.EmailOutboxStatus.PENDING")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    @Modifying
+    @Query(value = "update EmailOutbox o " +
+            "set o.status = com.github.mnishimori.domain.mail.EmailOutboxStatus.SENT, o.sentAt = :now, o.claimToken = null, o.lastError = null " +
+            "where o.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Returns to the queue the messages left in SENDING by a dispatcher that stopped before recording the outcome.
+     */
+    @Modifying
+    @Query(value = "update EmailOutbox o " +
+            "set o.status = com.github.mnishimori.domain.mail.EmailOutboxStatus.PENDING, o.claimToken = null " +
+            "where o.status = com.github.mnishimori.domain.mail.EmailOutboxStatus.SENDING and o.claimedAt < :claimedBefore")
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+}
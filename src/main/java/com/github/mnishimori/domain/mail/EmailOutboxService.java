@@ -0,0 +1,13 @@
+package com.github.mnishimori.domain.mail;
+
+public interface EmailOutboxService {
+
+    /**
+     * Queues a message to be sent by the outbox dispatcher. Must run inside the transaction that changes the state
+     * the message is about, so both are committed or rolled back together.
+     *
+     * @return false when a message with the same idempotency key was already queued
+     */
+    boolean enqueue(String idempotencyKey, String recipient, String subject, String body);
+
+}
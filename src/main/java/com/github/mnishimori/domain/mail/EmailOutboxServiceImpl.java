@@ -0,0 +1,37 @@
+package com.github.mnishimori.domain.mail;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private EmailOutboxRepository repository;
+
+    public EmailOutboxServiceImpl(EmailOutboxRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean enqueue(String idempotencyKey, String recipient, String subject, String body) {
+        if (repository.existsByIdempotencyKey(idempotencyKey)) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(EmailOutbox.builder()
+                .idempotencyKey(idempotencyKey)
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        return true;
+    }
+}
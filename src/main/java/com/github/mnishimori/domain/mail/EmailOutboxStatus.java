@@ -0,0 +1,13 @@
+package com.github.mnishimori.domain.mail;
+
+public enum EmailOutboxStatus {
+
+    PENDING,
+
+    SENDING,
+
+    SENT,
+
+    FAILED
+
+}
@@ -1,9 +1,14 @@
 package com.github.mnishimori.domain.mail;
 
 import java.util.List;
+import java.util.Map;
 
 public interface EmailService {
 
-    void sendEmails(List<String> emails, String message);
+    /**
+     * Sends the given outbox messages and returns the error of each message that could not be delivered, keyed by
+     * the message id.
+     */
+    Map<Long, String> send(List<EmailOutbox> messages);
 
 }
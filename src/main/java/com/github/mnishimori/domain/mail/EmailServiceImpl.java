@@ -1,27 +1,59 @@
 package com.github.mnishimori.domain.mail;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMailMessage;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
+@Slf4j
 public class EmailServiceImpl implements EmailService{
 
-    @Autowired
     private JavaMailSender javaMailSender;
 
+    public EmailServiceImpl(JavaMailSender javaMailSender) {
+        this.javaMailSender = javaMailSender;
+    }
+
     @Override
-    public void sendEmails(List<String> emails, String message) {
+    public Map<Long, String> send(List<EmailOutbox> messages) {
+        Map<SimpleMailMessage, EmailOutbox> outboxByMessage = new IdentityHashMap<>();
+        for (EmailOutbox message : messages) {
+            outboxByMessage.put(this.createMessage(message), message);
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        try {
+            javaMailSender.send(outboxByMessage.keySet().toArray(new SimpleMailMessage[0]));
+        } catch (MailSendException e) {
+            log.warn("Could not send {} of {} emails", e.getFailedMessages().size(), messages.size(), e);
+            e.getFailedMessages().forEach((failedMessage, exception) -> {
+                EmailOutbox message = outboxByMessage.get(failedMessage);
+                if (message != null) {
+                    failures.put(message.getId(), String.valueOf(exception.getMessage()));
+                }
+            });
+        } catch (MailException e) {
+            log.warn("Could not send {} emails", messages.size(), e);
+            messages.forEach(message -> failures.put(message.getId(), String.valueOf(e.getMessage())));
+        }
+
+        return failures;
+    }
+
+    private SimpleMailMessage createMessage(EmailOutbox message) {
         SimpleMailMessage mailMessage = new SimpleMailMessage();
         mailMessage.setFrom("mail@library-api.com");
-        mailMessage.setSubject("Livro com empréstimo atrasado");
-        mailMessage.setText(message);
-        mailMessage.setTo(emails.toArray(new String[emails.size()]));
-
-        javaMailSender.send(mailMessage);
+        mailMessage.setSubject(message.getSubject());
+        mailMessage.setText(message.getBody());
+        mailMessage.setTo(message.getRecipient());
+        return mailMessage;
     }
 }
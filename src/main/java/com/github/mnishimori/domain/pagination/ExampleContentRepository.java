@@ -0,0 +1,15 @@
+package com.github.mnishimori.domain.pagination;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface ExampleContentRepository<T> {
+
+    /**
+     * Same rows as {@code findAll(example, pageable).getContent()}, without running the count query.
+     * The given attributes are fetched in the same statement.
+     */
+    List<T> findContent(Example<T> example, Pageable pageable, String... fetchAttributes);
+}
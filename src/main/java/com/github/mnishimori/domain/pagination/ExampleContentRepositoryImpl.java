@@ -0,0 +1,53 @@
+package com.github.mnishimori.domain.pagination;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class ExampleContentRepositoryImpl<T> implements ExampleContentRepository<T> {
+
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<T> findContent(Example<T> example, Pageable pageable, String... fetchAttributes) {
+        Class<T> type = example.getProbeType();
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(type);
+        Root<T> root = query.from(type);
+
+        Predicate predicate = QueryByExamplePredicateBuilder.getPredicate(root, builder, example);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query);
+        if (fetchAttributes.length > 0) {
+            EntityGraph<T> graph = entityManager.createEntityGraph(type);
+            graph.addAttributeNodes(fetchAttributes);
+            typedQuery.setHint(LOAD_GRAPH, graph);
+        }
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        return typedQuery.getResultList();
+    }
+}
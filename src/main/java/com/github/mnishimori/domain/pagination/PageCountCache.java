@@ -0,0 +1,84 @@
+package com.github.mnishimori.domain.pagination;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps page totals per normalized filter for a short time, so consecutive pages of the same
+ * search don't each run a {@code count(*)}. Totals may be stale by up to the configured TTL.
+ */
+@Component
+public class PageCountCache {
+
+    private final long ttlNanos;
+
+    private final int maxEntries;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public PageCountCache(@Value("${library.pagination.count-cache.ttl:30s}") Duration ttl,
+                          @Value("${library.pagination.count-cache.max-entries:1000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    public <T> Page<T> getPage(List<T> content, Pageable pageable, String key, LongSupplier counter) {
+        return PageableExecutionUtils.getPage(content, pageable, () -> this.count(key, counter));
+    }
+
+    public long count(String key, LongSupplier counter) {
+        long now = System.nanoTime();
+
+        CachedCount cached = counts.get(key);
+        if (cached != null && now - cached.loadedAt < ttlNanos) {
+            return cached.total;
+        }
+
+        long total = counter.getAsLong();
+
+        if (counts.size() >= maxEntries) {
+            counts.values().removeIf(c -> now - c.loadedAt >= ttlNanos);
+            if (counts.size() >= maxEntries) {
+                counts.clear();
+            }
+        }
+        counts.put(key, new CachedCount(total, now));
+
+        return total;
+    }
+
+    public static String key(String type, Object... filterValues) {
+        StringBuilder key = new StringBuilder(type);
+        for (Object value : filterValues) {
+            key.append('|');
+            if (value instanceof String) {
+                key.append(((String) value).toLowerCase(Locale.ROOT));
+            } else if (value != null) {
+                key.append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    private static final class CachedCount {
+
+        private final long total;
+
+        private final long loadedAt;
+
+        private CachedCount(long total, long loadedAt) {
+            this.total = total;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
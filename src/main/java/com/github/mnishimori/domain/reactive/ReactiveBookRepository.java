@@ -0,0 +1,84 @@
+package com.github.mnishimori.domain.reactive;
+
+import com.github.mnishimori.domain.book.Book;
+import io.r2dbc.spi.Row;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking reads of books through R2DBC. Results are emitted as the client requests them, so a long listing is
+ * streamed without holding a thread per request; writes go through {@link BookService}.
+ */
+@Repository
+public class ReactiveBookRepository {
+
+    private static final String SELECT = "select b.id, b.title, b.author, b.isbn, b.available from book b";
+
+    private static final Map<String, String> SORTABLE_COLUMNS = new HashMap<>();
+
+    static {
+        SORTABLE_COLUMNS.put("id", "b.id");
+        SORTABLE_COLUMNS.put("title", "b.title");
+        SORTABLE_COLUMNS.put("author", "b.author");
+        SORTABLE_COLUMNS.put("isbn", "b.isbn");
+    }
+
+    private final DatabaseClient client;
+
+    public ReactiveBookRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Flux<Book> findAll() {
+        return client.sql(SELECT + " order by b.id")
+                .map(this::toBook)
+                .all();
+    }
+
+    public Mono<Book> findById(Long id) {
+        return client.sql(SELECT + " where b.id = :id")
+                .bind("id", id)
+                .map(this::toBook)
+                .one();
+    }
+
+    public Flux<Book> find(Book filter, Pageable pageable) {
+        SqlCriteria criteria = this.criteria(filter);
+
+        return criteria.bind(client.sql(SELECT + criteria.where() + criteria.page(pageable, SORTABLE_COLUMNS, "b.id")))
+                .map(this::toBook)
+                .all();
+    }
+
+    public Mono<Long> count(Book filter) {
+        SqlCriteria criteria = this.criteria(filter);
+
+        return criteria.bind(client.sql("select count(*) as total from book b" + criteria.where()))
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    private SqlCriteria criteria(Book filter) {
+        return new SqlCriteria()
+                .equalTo("b.id", filter.getId())
+                .contains("b.title", filter.getTitle())
+                .contains("b.author", filter.getAuthor())
+                .contains("b.isbn", filter.getIsbn());
+    }
+
+    private Book toBook(Row row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .available(row.get("available", Boolean.class))
+                .build();
+    }
+}
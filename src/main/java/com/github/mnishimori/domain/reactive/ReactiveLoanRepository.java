@@ -0,0 +1,91 @@
+package com.github.mnishimori.domain.reactive;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import io.r2dbc.spi.Row;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Non-blocking search of loans, with their books, through R2DBC; writes go through {@link LoanService}.
+ */
+@Repository
+public class ReactiveLoanRepository {
+
+    private static final String FROM = " from loan l left join book b on b.id = l.id_book";
+
+    private static final String SELECT = "select l.id, l.customer, l.customer_email, l.loan_date, l.due_date, l.returned, "
+            + "b.id as book_id, b.title as book_title, b.author as book_author, b.isbn as book_isbn" + FROM;
+
+    private static final Map<String, String> SORTABLE_COLUMNS = new HashMap<>();
+
+    static {
+        SORTABLE_COLUMNS.put("id", "l.id");
+        SORTABLE_COLUMNS.put("customer", "l.customer");
+        SORTABLE_COLUMNS.put("customerEmail", "l.customer_email");
+        SORTABLE_COLUMNS.put("loanDate", "l.loan_date");
+        SORTABLE_COLUMNS.put("dueDate", "l.due_date");
+    }
+
+    private final DatabaseClient client;
+
+    public ReactiveLoanRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Flux<Loan> find(Loan filter, Pageable pageable) {
+        SqlCriteria criteria = this.criteria(filter);
+
+        return criteria.bind(client.sql(SELECT + criteria.where() + criteria.page(pageable, SORTABLE_COLUMNS, "l.id")))
+                .map(this::toLoan)
+                .all();
+    }
+
+    public Mono<Long> count(Loan filter) {
+        SqlCriteria criteria = this.criteria(filter);
+
+        return criteria.bind(client.sql("select count(*) as total" + FROM + criteria.where()))
+                .map(row -> row.get("total", Long.class))
+                .one();
+    }
+
+    private SqlCriteria criteria(Loan filter) {
+        Book book = filter.getBook() == null ? new Book() : filter.getBook();
+
+        return new SqlCriteria()
+                .equalTo("l.id", filter.getId())
+                .contains("l.customer", filter.getCustomer())
+                .contains("l.customer_email", filter.getCustomerEmail())
+                .equalTo("l.returned", filter.getReturned())
+                .equalTo("b.id", book.getId())
+                .contains("b.title", book.getTitle())
+                .contains("b.author", book.getAuthor())
+                .contains("b.isbn", book.getIsbn());
+    }
+
+    private Loan toLoan(Row row) {
+        Long bookId = row.get("book_id", Long.class);
+
+        return Loan.builder()
+                .id(row.get("id", Long.class))
+                .customer(row.get("customer", String.class))
+                .customerEmail(row.get("customer_email", String.class))
+                .loanDate(row.get("loan_date", LocalDate.class))
+                .dueDate(row.get("due_date", LocalDate.class))
+                .returned(row.get("returned", Boolean.class))
+                .book(bookId == null ? null : Book.builder()
+                        .id(bookId)
+                        .title(row.get("book_title", String.class))
+                        .author(row.get("book_author", String.class))
+                        .isbn(row.get("book_isbn", String.class))
+                        .build())
+                .build();
+    }
+}
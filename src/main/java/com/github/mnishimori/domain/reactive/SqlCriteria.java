@@ -0,0 +1,75 @@
+package com.github.mnishimori.domain.reactive;
+
+import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the where, order by and limit clauses of a query-by-example search in plain SQL for the R2DBC read API,
+ * matching like the {@code ExampleMatcher} of the JPA services: null values are ignored, strings match ignoring case
+ * anywhere in the column and other values match exactly. Sorting is only allowed on the given columns.
+ */
+public class SqlCriteria {
+
+    private final List<String> clauses = new ArrayList<>();
+
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    public SqlCriteria equalTo(String column, Object value) {
+        if (value != null) {
+            clauses.add(column + " = :" + this.parameter(value));
+        }
+        return this;
+    }
+
+    public SqlCriteria contains(String column, String value) {
+        if (value != null) {
+            String pattern = "%" + value.toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_") + "%";
+            clauses.add("lower(" + column + ") like :" + this.parameter(pattern) + " escape '\\'");
+        }
+        return this;
+    }
+
+    public String where() {
+        return clauses.isEmpty() ? "" : " where " + String.join(" and ", clauses);
+    }
+
+    public String page(Pageable pageable, Map<String, String> sortableColumns, String defaultOrder) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            String column = sortableColumns.get(order.getProperty());
+            if (column == null) {
+                throw new BusinessException(BusinessRejection.UNSUPPORTED_SORT, "Ordenação não suportada");
+            }
+            orders.add(column + (order.isAscending() ? " asc" : " desc"));
+        }
+        orders.add(defaultOrder);
+
+        return " order by " + String.join(", ", orders)
+                + " limit " + pageable.getPageSize() + " offset " + pageable.getOffset();
+    }
+
+    public DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec;
+    }
+
+    private String parameter(Object value) {
+        String name = "p" + parameters.size();
+        parameters.put(name, value);
+        return name;
+    }
+}
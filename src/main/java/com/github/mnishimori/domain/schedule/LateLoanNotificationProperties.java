@@ -0,0 +1,14 @@
+package com.github.mnishimori.domain.schedule;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "library.notifications.late-loans")
+public class LateLoanNotificationProperties {
+
+    private int pageSize = 500;
+
+}
@@ -2,36 +2,103 @@ package com.github.mnishimori.domain.schedule;
 
 import com.github.mnishimori.domain.loan.Loan;
 import com.github.mnishimori.domain.loan.LoanService;
-import com.github.mnishimori.domain.mail.EmailService;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.github.mnishimori.domain.mail.EmailOutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class ScheduleService {
 
-    @Autowired
-    private LoanService loanService;
+    private static final String LATE_LOAN_SUBJECT = "Livro com empréstimo atrasado";
 
-    @Autowired
-    private EmailService emailService;
+    private static final String LATE_LOAN_MESSAGE = "Atenão! Você tem um empréstimo atrasado. Favor devolver o livro o mais rápido possível";
 
+    private static final String LATE_LOAN_KEY_PREFIX = "late-loan:";
 
-    @Scheduled(cron = "0 0 0 1/1 * ?")
+    private final LoanService loanService;
+
+    private final EmailOutboxService outboxService;
+
+    private final LateLoanNotificationProperties properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter queuedCounter;
+
+    private final Timer runTimer;
+
+    public ScheduleService(LoanService loanService,
+                           EmailOutboxService outboxService,
+                           LateLoanNotificationProperties properties,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.loanService = loanService;
+        this.outboxService = outboxService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.queuedCounter = meterRegistry.counter("library.notifications.late-loans.emails", "result", "queued");
+        this.runTimer = meterRegistry.timer("library.notifications.late-loans.run");
+    }
+
+
+    @Scheduled(cron = "${library.notifications.late-loans.cron:0 */5 * * * ?}")
     public void sendMailToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
+        runTimer.record(this::notifyLateLoans);
+    }
+
+    /**
+     * Queues one email per customer for the loans that became overdue since the last run (overdue_notified = false).
+     * Each page is marked as notified in the same transaction that writes its emails to the outbox, so a loan is
+     * never marked without its email and the SMTP server is only contacted later by the outbox dispatcher.
+     */
+    private void notifyLateLoans() {
+        Set<String> notifiedEmails = new HashSet<>();
+        int loans = 0;
 
-        List<String> emails = allLateLoans
-                .stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+        Long lastId = 0L;
+        List<Loan> overdueLoans;
+        do {
+            Long afterId = lastId;
+            overdueLoans = transactionTemplate.execute(status -> this.notifyPage(afterId, notifiedEmails));
 
-        String message = "Atenão! Você tem um empréstimo atrasado. Favor devolver o livro o mais rápido possível";
+            if (!overdueLoans.isEmpty()) {
+                lastId = overdueLoans.get(overdueLoans.size() - 1).getId();
+                loans += overdueLoans.size();
+            }
+        } while (overdueLoans.size() == properties.getPageSize());
 
-        emailService.sendEmails(emails, message);
+        log.info("Late loan notification queued for {} customers of {} overdue loans", notifiedEmails.size(), loans);
     }
 
+    private List<Loan> notifyPage(Long lastId, Set<String> notifiedEmails) {
+        List<Loan> overdueLoans = loanService.getNewlyOverdueLoans(lastId, properties.getPageSize());
+
+        for (Loan loan : overdueLoans) {
+            String email = loan.getCustomerEmail();
+            if (email == null || email.trim().isEmpty() || !notifiedEmails.add(email.trim().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+
+            if (outboxService.enqueue(LATE_LOAN_KEY_PREFIX + loan.getId(), email.trim(), LATE_LOAN_SUBJECT, LATE_LOAN_MESSAGE)) {
+                queuedCounter.increment();
+            }
+        }
+
+        loanService.markOverdueNotified(overdueLoans.stream().map(Loan::getId).collect(Collectors.toList()));
+        return overdueLoans;
+    }
 }
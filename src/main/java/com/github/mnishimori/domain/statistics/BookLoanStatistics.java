@@ -0,0 +1,28 @@
+package com.github.mnishimori.domain.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_loan_stats")
+public class BookLoanStatistics {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Embedded
+    private LoanCounters counters;
+}
@@ -0,0 +1,44 @@
+package com.github.mnishimori.domain.statistics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+/**
+ * The counters are changed in place by set based statements over the given loans, so a batch of loans costs one
+ * statement per counter table whatever its size.
+ */
+public interface BookLoanStatisticsRepository extends JpaRepository<BookLoanStatistics, Long> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = "merge into book_loan_stats s using (" +
+            "select l.id_book, count(*) as loans, max(l.loan_date) as last_loan_date " +
+            "from loan l where l.id in (:loanIds) group by l.id_book) n on (s.book_id = n.id_book) " +
+            "when matched then update set total_loans = s.total_loans + n.loans, open_loans = s.open_loans + n.loans, " +
+            "last_loan_date = case when s.last_loan_date is null or n.last_loan_date > s.last_loan_date " +
+            "then n.last_loan_date else s.last_loan_date end " +
+            "when not matched then insert (book_id, total_loans, open_loans, overdue_loans, last_loan_date) " +
+            "values (n.id_book, n.loans, n.loans, 0, n.last_loan_date)")
+    int addLoans(@Param("loanIds") Collection<Long> loanIds);
+
+    /**
+     * @param sign -1 when the loans are returned, 1 when they are open again
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "update book_loan_stats s set " +
+            "open_loans = s.open_loans + :sign * " +
+            "(select count(*) from loan l where l.id_book = s.book_id and l.id in (:loanIds)), " +
+            "overdue_loans = s.overdue_loans + :sign * " +
+            "(select count(*) from loan l where l.id_book = s.book_id and l.id in (:loanIds) and l.overdue_notified = true) " +
+            "where s.book_id in (select l.id_book from loan l where l.id in (:loanIds))")
+    int addOpenLoans(@Param("loanIds") Collection<Long> loanIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update book_loan_stats s set overdue_loans = s.overdue_loans + " +
+            "(select count(*) from loan l where l.id_book = s.book_id and l.id in (:loanIds)) " +
+            "where s.book_id in (select l.id_book from loan l where l.id in (:loanIds))")
+    int addOverdueLoans(@Param("loanIds") Collection<Long> loanIds);
+}
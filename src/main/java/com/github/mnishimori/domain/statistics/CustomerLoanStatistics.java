@@ -0,0 +1,28 @@
+package com.github.mnishimori.domain.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "customer_loan_stats")
+public class CustomerLoanStatistics {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Embedded
+    private LoanCounters counters;
+}
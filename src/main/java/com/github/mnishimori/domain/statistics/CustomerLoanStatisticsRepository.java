@@ -0,0 +1,45 @@
+package com.github.mnishimori.domain.statistics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+/**
+ * Same statements as {@link BookLoanStatisticsRepository}, grouped by the customer of the loans. Loans without a
+ * customer, made with no email, are not counted.
+ */
+public interface CustomerLoanStatisticsRepository extends JpaRepository<CustomerLoanStatistics, Long> {
+
+    @Modifying
+    @Query(nativeQuery = true, value = "merge into customer_loan_stats s using (" +
+            "select l.id_customer, count(*) as loans, max(l.loan_date) as last_loan_date " +
+            "from loan l where l.id in (:loanIds) and l.id_customer is not null group by l.id_customer) n " +
+            "on (s.customer_id = n.id_customer) " +
+            "when matched then update set total_loans = s.total_loans + n.loans, open_loans = s.open_loans + n.loans, " +
+            "last_loan_date = case when s.last_loan_date is null or n.last_loan_date > s.last_loan_date " +
+            "then n.last_loan_date else s.last_loan_date end " +
+            "when not matched then insert (customer_id, total_loans, open_loans, overdue_loans, last_loan_date) " +
+            "values (n.id_customer, n.loans, n.loans, 0, n.last_loan_date)")
+    int addLoans(@Param("loanIds") Collection<Long> loanIds);
+
+    /**
+     * @param sign -1 when the loans are returned, 1 when they are open again
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "update customer_loan_stats s set " +
+            "open_loans = s.open_loans + :sign * " +
+            "(select count(*) from loan l where l.id_customer = s.customer_id and l.id in (:loanIds)), " +
+            "overdue_loans = s.overdue_loans + :sign * " +
+            "(select count(*) from loan l where l.id_customer = s.customer_id and l.id in (:loanIds) and l.overdue_notified = true) " +
+            "where s.customer_id in (select l.id_customer from loan l where l.id in (:loanIds))")
+    int addOpenLoans(@Param("loanIds") Collection<Long> loanIds, @Param("sign") int sign);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "update customer_loan_stats s set overdue_loans = s.overdue_loans + " +
+            "(select count(*) from loan l where l.id_customer = s.customer_id and l.id in (:loanIds)) " +
+            "where s.customer_id in (select l.id_customer from loan l where l.id in (:loanIds))")
+    int addOverdueLoans(@Param("loanIds") Collection<Long> loanIds);
+}
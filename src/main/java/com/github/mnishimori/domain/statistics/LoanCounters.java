@@ -0,0 +1,34 @@
+package com.github.mnishimori.domain.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.time.LocalDate;
+
+/**
+ * Loan counters of a book or a customer. Overdue loans are the open ones already reported by the late loan
+ * notification, so the count follows that job rather than the calendar.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class LoanCounters {
+
+    @Column(name = "total_loans", nullable = false)
+    private long totalLoans;
+
+    @Column(name = "open_loans", nullable = false)
+    private long openLoans;
+
+    @Column(name = "overdue_loans", nullable = false)
+    private long overdueLoans;
+
+    @Column(name = "last_loan_date")
+    private LocalDate lastLoanDate;
+}
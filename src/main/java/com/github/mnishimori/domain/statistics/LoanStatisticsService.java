@@ -0,0 +1,30 @@
+package com.github.mnishimori.domain.statistics;
+
+import java.util.Collection;
+
+/**
+ * Loan counters per book and per customer, kept up to date by the loan service instead of counted on demand.
+ * <p>
+ * The update methods must run inside the transaction that changes the loans, with the given loans locked by it, and
+ * receive only the loans whose state really changed, so each loan is counted once.
+ */
+public interface LoanStatisticsService {
+
+    void loansOpened(Collection<Long> loanIds);
+
+    void loansReturned(Collection<Long> loanIds);
+
+    void loansReopened(Collection<Long> loanIds);
+
+    void loansOverdue(Collection<Long> loanIds);
+
+    /**
+     * @return zeroed counters when the book was never loaned
+     */
+    LoanCounters getByBook(Long bookId);
+
+    /**
+     * @return zeroed counters when the customer never borrowed a book
+     */
+    LoanCounters getByCustomer(Long customerId);
+}
@@ -0,0 +1,90 @@
+package com.github.mnishimori.domain.statistics;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+
+@Service
+public class LoanStatisticsServiceImpl implements LoanStatisticsService {
+
+    private static final int RETURNED = -1;
+
+    private static final int REOPENED = 1;
+
+    private BookLoanStatisticsRepository bookRepository;
+
+    private CustomerLoanStatisticsRepository customerRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public LoanStatisticsServiceImpl(BookLoanStatisticsRepository bookRepository,
+                                     CustomerLoanStatisticsRepository customerRepository) {
+        this.bookRepository = bookRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loansOpened(Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) {
+            return;
+        }
+
+        // the counters are read from the loan rows, so the new loans must be inserted first
+        entityManager.flush();
+
+        bookRepository.addLoans(loanIds);
+        customerRepository.addLoans(loanIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loansReturned(Collection<Long> loanIds) {
+        this.addOpenLoans(loanIds, RETURNED);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loansReopened(Collection<Long> loanIds) {
+        this.addOpenLoans(loanIds, REOPENED);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loansOverdue(Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) {
+            return;
+        }
+
+        bookRepository.addOverdueLoans(loanIds);
+        customerRepository.addOverdueLoans(loanIds);
+    }
+
+    @Override
+    public LoanCounters getByBook(Long bookId) {
+        return bookRepository.findById(bookId)
+                .map(BookLoanStatistics::getCounters)
+                .orElseGet(LoanCounters::new);
+    }
+
+    @Override
+    public LoanCounters getByCustomer(Long customerId) {
+        return customerRepository.findById(customerId)
+                .map(CustomerLoanStatistics::getCounters)
+                .orElseGet(LoanCounters::new);
+    }
+
+    private void addOpenLoans(Collection<Long> loanIds, int sign) {
+        if (loanIds.isEmpty()) {
+            return;
+        }
+
+        bookRepository.addOpenLoans(loanIds, sign);
+        customerRepository.addOpenLoans(loanIds, sign);
+    }
+}
@@ -1,6 +0,0 @@
-create table Book (
- id integer primary key auto_increment,
- title varchar(250),
- author varchar(250),
- isbn varchar(50)
-);
\ No newline at end of file
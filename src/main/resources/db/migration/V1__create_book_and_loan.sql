@@ -0,0 +1,23 @@
+create sequence book_seq start with 1 increment by 50;
+
+create sequence loan_seq start with 1 increment by 50;
+
+create table book (
+    id bigint not null,
+    title varchar(250),
+    author varchar(250),
+    isbn varchar(50),
+    available boolean default true not null,
+    constraint pk_book primary key (id)
+);
+
+create table loan (
+    id bigint not null,
+    customer varchar(255),
+    customer_email varchar(255),
+    id_book bigint,
+    loan_date date,
+    returned boolean,
+    constraint pk_loan primary key (id),
+    constraint fk_loan_book foreign key (id_book) references book (id)
+);
@@ -0,0 +1,15 @@
+-- lookups by isbn (findByIsbn, existsByIsbn, bulk import) and uniqueness
+create unique index ux_book_isbn on book (isbn);
+
+-- open-loan check per book: id_book = ? and returned = false
+create index ix_loan_book_returned on loan (id_book, returned);
+
+-- late-loan scan: returned = false and loan_date <= ?
+create index ix_loan_returned_loan_date on loan (returned, loan_date);
+
+-- a non-null status lets the predicates above be plain equalities instead of "is null or = false"
+update loan set returned = false where returned is null;
+
+alter table loan alter column returned set default false;
+
+alter table loan alter column returned set not null;
@@ -0,0 +1,17 @@
+alter table loan add column due_date date;
+
+alter table loan add column overdue_notified boolean default false not null;
+
+-- loans made so far used the fixed four day period
+update loan set due_date = dateadd('DAY', 4, loan_date);
+
+-- loans already past due were notified by the former nightly full scan
+update loan set overdue_notified = true where returned = false and due_date < current_date;
+
+-- late loans are now found by due date instead of loan date
+drop index ix_loan_returned_loan_date;
+
+create index ix_loan_returned_due_date on loan (returned, due_date);
+
+-- newly overdue scan: returned = false and overdue_notified = false and due_date <= ?
+create index ix_loan_overdue_pending on loan (returned, overdue_notified, due_date);
@@ -0,0 +1,26 @@
+create sequence email_outbox_seq start with 1 increment by 50;
+
+create table email_outbox (
+    id bigint not null,
+    idempotency_key varchar(200) not null,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    body varchar(4000) not null,
+    status varchar(20) not null,
+    attempts integer default 0 not null,
+    next_attempt_at timestamp not null,
+    claim_token varchar(36),
+    claimed_at timestamp,
+    sent_at timestamp,
+    last_error varchar(1000),
+    created_at timestamp not null,
+    constraint pk_email_outbox primary key (id)
+);
+
+-- a message is enqueued at most once per key, even if the producing job runs again
+create unique index ux_email_outbox_idempotency_key on email_outbox (idempotency_key);
+
+-- dispatcher poll: status = 'PENDING' and next_attempt_at <= ? order by id
+create index ix_email_outbox_status_next_attempt on email_outbox (status, next_attempt_at);
+
+create index ix_email_outbox_claim_token on email_outbox (claim_token);
@@ -0,0 +1,6 @@
+alter table book add column version bigint default 0 not null;
+
+alter table book add column updated_at timestamp default current_timestamp not null;
+
+-- max(updated_at) is part of the ETag of the book listing
+create index ix_book_updated_at on book (updated_at);
@@ -0,0 +1 @@
+alter table loan add column version bigint default 0 not null;
@@ -0,0 +1,20 @@
+create table book_loan_stats (
+    book_id bigint not null,
+    total_loans bigint default 0 not null,
+    open_loans bigint default 0 not null,
+    overdue_loans bigint default 0 not null,
+    last_loan_date date,
+    constraint pk_book_loan_stats primary key (book_id),
+    constraint fk_book_loan_stats_book foreign key (book_id) references book (id) on delete cascade
+);
+
+-- counters of the loans made so far; from now on they are kept by the loan service
+insert into book_loan_stats (book_id, total_loans, open_loans, overdue_loans, last_loan_date)
+select id_book,
+       count(*),
+       sum(case when returned = false then 1 else 0 end),
+       sum(case when returned = false and overdue_notified = true then 1 else 0 end),
+       max(loan_date)
+from loan
+where id_book is not null
+group by id_book;
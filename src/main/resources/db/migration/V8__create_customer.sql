@@ -0,0 +1,51 @@
+create sequence customer_seq start with 1 increment by 50;
+
+create table customer (
+    id bigint not null,
+    email varchar(255) not null,
+    name varchar(255),
+    constraint pk_customer primary key (id)
+);
+
+-- emails are stored trimmed and in lower case, so the lookup is an exact match
+create unique index ux_customer_email on customer (email);
+
+alter table loan add column id_customer bigint;
+
+alter table loan add constraint fk_loan_customer foreign key (id_customer) references customer (id);
+
+-- loans of a customer in keyset pages: id_customer = ? and id > ? order by id
+create index ix_loan_customer_id on loan (id_customer, id);
+
+-- one customer per distinct email among the loans made so far
+-- (next value for is the standard sequence expression: H2, HSQLDB and SQL Server; PostgreSQL needs nextval)
+insert into customer (id, email, name)
+select next value for customer_seq, email, name
+from (select lower(trim(customer_email)) as email, max(customer) as name
+      from loan
+      where trim(customer_email) <> ''
+      group by lower(trim(customer_email)));
+
+update loan l set id_customer = (select c.id from customer c where c.email = lower(trim(l.customer_email)))
+where trim(customer_email) <> '';
+
+-- counters per customer, next to the ones per book of V7; from now on they are kept by the loan service
+create table customer_loan_stats (
+    customer_id bigint not null,
+    total_loans bigint default 0 not null,
+    open_loans bigint default 0 not null,
+    overdue_loans bigint default 0 not null,
+    last_loan_date date,
+    constraint pk_customer_loan_stats primary key (customer_id),
+    constraint fk_customer_loan_stats_customer foreign key (customer_id) references customer (id) on delete cascade
+);
+
+insert into customer_loan_stats (customer_id, total_loans, open_loans, overdue_loans, last_loan_date)
+select id_customer,
+       count(*),
+       sum(case when returned = false then 1 else 0 end),
+       sum(case when returned = false and overdue_notified = true then 1 else 0 end),
+       max(loan_date)
+from loan
+where id_customer is not null
+group by id_customer;
@@ -0,0 +1,26 @@
+-- returned loans past the retention period, moved out of loan by the archiver
+create table loan_archive (
+    id bigint not null,
+    customer varchar(255),
+    customer_email varchar(255),
+    id_customer bigint,
+    id_book bigint,
+    loan_date date,
+    due_date date,
+    returned boolean not null,
+    overdue_notified boolean not null,
+    version bigint not null,
+    archived_at timestamp not null,
+    constraint pk_loan_archive primary key (id),
+    constraint fk_loan_archive_book foreign key (id_book) references book (id),
+    constraint fk_loan_archive_customer foreign key (id_customer) references customer (id)
+);
+
+-- archived history of a book, in pages
+create index ix_loan_archive_book_id on loan_archive (id_book, id);
+
+-- archived loans of a customer in keyset pages: id_customer = ? and id > ? order by id
+create index ix_loan_archive_customer_id on loan_archive (id_customer, id);
+
+-- archiver scan: returned = true and loan_date < ?
+create index ix_loan_returned_loan_date on loan (returned, loan_date);
@@ -2,10 +2,21 @@ package com.github.mnishimori.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.exception.ApplicationControllerAdvice;
+import com.github.mnishimori.api.http.BlockingCalls;
+import com.github.mnishimori.api.http.ConditionalRequests;
 import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookImportResult;
+import com.github.mnishimori.domain.book.BookImportRow;
+import com.github.mnishimori.domain.book.BookImportService;
+import com.github.mnishimori.domain.book.BookListVersion;
 import com.github.mnishimori.domain.book.BookService;
 import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
 import com.github.mnishimori.domain.loan.Loan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,20 +27,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -37,16 +58,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import({SimpleMeterRegistry.class, ConditionalRequests.class, BlockingCalls.class})
 public class BookControllerTest {
 
     static String BOOK_API = "/api/books";
 
+    static LocalDateTime UPDATED_AT = LocalDateTime.of(2021, 6, 1, 10, 0);
+
+    static String LIST_ETAG = "\"books-1-1-" + UPDATED_AT.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + "\"";
+
     @Autowired
     MockMvc mvc;
 
     @MockBean
     BookService service;
 
+    @MockBean
+    BookImportService importService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
 
     @Test
     @DisplayName("Deve criar um livro com sucesso.")
@@ -109,7 +141,7 @@ public class BookControllerTest {
         String mensagemErro = "Isbn já cadastrado";
 
         // execução
-        BDDMockito.given(service.save(Mockito.any(Book.class))).willThrow(new BusinessException(mensagemErro));
+        BDDMockito.given(service.save(Mockito.any(Book.class))).willThrow(new BusinessException(BusinessRejection.ISBN_ALREADY_REGISTERED, mensagemErro));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .post(BOOK_API)
@@ -122,6 +154,9 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value(mensagemErro));
+
+        Assertions.assertThat(meterRegistry.counter(ApplicationControllerAdvice.BUSINESS_REJECTIONS_METRIC, "reason", "isbn-already-registered").count())
+                .isEqualTo(1);
     }
 
 
@@ -131,19 +166,131 @@ public class BookControllerTest {
         // cenário
         Book book = this.createNewBook();
 
-        BDDMockito
-                .given(service.listAll())
-                .willReturn(Arrays.asList(book));
+        this.givenStreamedBooks(book);
 
         // execução
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(BOOK_API)
                 .accept(MediaType.APPLICATION_JSON);
 
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(book.getId()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].isbn").value(book.getIsbn()));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar not modified sem ler os livros quando a listagem não tiver sido alterada")
+    public void listAllNotModifiedTest() throws Exception {
+        // cenário
+        this.givenStreamedBooks(this.createNewBook());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API)
+                .header(HttpHeaders.IF_NONE_MATCH, LIST_ETAG)
+                .accept(MediaType.APPLICATION_JSON);
+
         // verificação
         mvc
                 .perform(request)
-                .andExpect(MockMvcResultMatchers.status().isOk());
+                .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, LIST_ETAG))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+
+        Mockito.verify(service, Mockito.never()).streamAll(Mockito.any());
+    }
+
+
+    @Test
+    @DisplayName("Deve transmitir todos os livros em NDJSON")
+    public void streamAllTest() throws Exception {
+        // cenário
+        Book book = this.createNewBook();
+        Book otherBook = Book.builder().id(2L).author("Beltrano").title("Outras aventuras").isbn("002").build();
+
+        this.givenStreamedBooks(book, otherBook);
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/stream"))
+                .accept(MediaType.APPLICATION_NDJSON);
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        String[] lines = mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(new ObjectMapper().readValue(lines[1], BookDto.class).getIsbn()).isEqualTo("002");
+    }
+
+
+    @Test
+    @DisplayName("Deve listar livros a partir do último id informado")
+    public void listAfterTest() throws Exception {
+        // cenário
+        Book book = this.createNewBook();
+        Book otherBook = Book.builder().id(2L).author("Beltrano").title("Outras aventuras").isbn("002").build();
+
+        BDDMockito
+                .given(service.listAfter(0L, 2))
+                .willReturn(Arrays.asList(book, otherBook));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/cursor?lastId=0&size=2"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("nextId").value(2));
+    }
+
+
+    @Test
+    @DisplayName("Deve lançar erro ao listar livros com tamanho de página inválido")
+    public void listAfterInvalidSizeTest() throws Exception {
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/cursor?lastId=0&size=0"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(service, Mockito.never()).listAfter(Mockito.anyLong(), Mockito.anyInt());
     }
 
 
@@ -167,7 +314,68 @@ public class BookControllerTest {
             .andExpect(MockMvcResultMatchers.jsonPath("id").value(book.getId()))
             .andExpect(MockMvcResultMatchers.jsonPath("title").value(book.getTitle()))
             .andExpect(MockMvcResultMatchers.jsonPath("author").value(book.getAuthor()))
-            .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()));
+            .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()))
+            .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1.0\""))
+            .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.LAST_MODIFIED))
+            .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar not modified quando o ETag informado for o da versão atual do livro")
+    public void getBookNotModifiedTest() throws Exception {
+        // cenário
+        Book book = this.createNewBook();
+
+        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(book));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + book.getId()))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1.0\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+            .perform(request)
+            .andExpect(MockMvcResultMatchers.status().isNotModified())
+            .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1.0\""))
+            .andExpect(MockMvcResultMatchers.content().string(""));
+
+        Assertions.assertThat(meterRegistry.get(ConditionalRequests.CONDITIONAL_METRIC)
+                .tags("endpoint", "books.get", "result", "not-modified")
+                .counter()
+                .count()).isEqualTo(1);
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar o livro quando ele tiver sido alterado após a data informada")
+    public void getBookModifiedSinceTest() throws Exception {
+        // cenário
+        Book book = this.createNewBook();
+
+        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(book));
+
+        long cachedAt = book.getUpdatedAt().minusDays(1).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        double modified = meterRegistry.counter(ConditionalRequests.CONDITIONAL_METRIC,
+                "endpoint", "books.get", "result", "modified").count();
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + book.getId()))
+                .header(HttpHeaders.IF_MODIFIED_SINCE, cachedAt)
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+            .perform(request)
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("id").value(book.getId()));
+
+        Assertions.assertThat(meterRegistry.counter(ConditionalRequests.CONDITIONAL_METRIC,
+                "endpoint", "books.get", "result", "modified").count()).isEqualTo(modified + 1);
     }
 
 
@@ -197,7 +405,7 @@ public class BookControllerTest {
 
         Book book = this.createNewBook();
 
-        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class), Mockito.eq(false)))
                 .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
 
         // execução
@@ -208,9 +416,14 @@ public class BookControllerTest {
                 .get(BOOK_API.concat("/lista-paginada/").concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
         // verificação
         mvc
-                .perform(request)
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
@@ -219,6 +432,34 @@ public class BookControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Deve filtrar livros com o total exato quando solicitado")
+    public void findBookWithExactTotalTest() throws Exception {
+        // cenário
+        Book book = this.createNewBook();
+
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class), Mockito.eq(true)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), 5));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/lista-paginada?title=aventuras&page=0&size=1&exactTotal=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(5));
+    }
+
+
     @Test
     @DisplayName("Deve atualizar um livro")
     public void updateBookTest() throws Exception {
@@ -227,13 +468,15 @@ public class BookControllerTest {
 
         String json = new ObjectMapper().writeValueAsString(this.createNewBookDto());
 
-        Book updatingBook = Book.builder().id(1l).title("some title").author("some author").isbn("321").build();
+        Book updatingBook = Book.builder().id(1l).title("some title").author("some author").isbn("321").version(3L).build();
 
         BDDMockito.given(service.getById(id)).willReturn(Optional.of(updatingBook));
 
-        Book updatedBook = Book.builder().id(id).author("Arthur").title("As aventuras").isbn("321").build();
+        Book changes = Book.builder().id(id).author("Artur").title("As aventuras").isbn("321").version(3L).build();
 
-        BDDMockito.given(service.update(updatingBook)).willReturn(updatedBook);
+        Book updatedBook = Book.builder().id(id).author("Arthur").title("As aventuras").isbn("321").version(4L).build();
+
+        BDDMockito.given(service.update(changes)).willReturn(updatedBook);
 
         // execução
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -249,7 +492,119 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("id").value(updatedBook.getId()))
                 .andExpect(MockMvcResultMatchers.jsonPath("title").value(updatedBook.getTitle()))
                 .andExpect(MockMvcResultMatchers.jsonPath("author").value(updatedBook.getAuthor()))
-                .andExpect(MockMvcResultMatchers.jsonPath("isbn").value("321"));
+                .andExpect(MockMvcResultMatchers.jsonPath("isbn").value("321"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1.4\""));
+
+        Assertions.assertThat(updatingBook.getTitle()).isEqualTo("some title");
+    }
+
+
+    @Test
+    @DisplayName("Deve atualizar um livro na versão informada no If-Match")
+    public void updateBookIfMatchTest() throws Exception {
+        // cenário
+        String json = new ObjectMapper().writeValueAsString(this.createNewBookDto());
+
+        Book cachedBook = Book.builder().id(1L).title("some title").author("some author").isbn("321").version(3L).build();
+
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(cachedBook));
+
+        Book changes = Book.builder().id(1L).author("Artur").title("As aventuras").isbn("321").version(5L).build();
+
+        BDDMockito.given(service.update(changes))
+                .willReturn(Book.builder().id(1L).author("Artur").title("As aventuras").isbn("321").version(6L).build());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + 1))
+                .header(HttpHeaders.IF_MATCH, "\"1.5\"")
+                .content(json)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1.6\""));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar precondition failed quando o livro tiver sido alterado após a versão do If-Match")
+    public void updateBookPreconditionFailedTest() throws Exception {
+        // cenário
+        String json = new ObjectMapper().writeValueAsString(this.createNewBookDto());
+
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(this.createNewBook()));
+
+        BDDMockito.given(service.update(Mockito.any(Book.class)))
+                .willThrow(new OptimisticLockingFailureException("Livro alterado por outra requisição"));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + 1))
+                .header(HttpHeaders.IF_MATCH, "\"1.0\"")
+                .content(json)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Livro alterado por outra requisição"));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar precondition failed sem atualizar quando o If-Match não for de uma versão do livro")
+    public void updateBookInvalidIfMatchTest() throws Exception {
+        // cenário
+        String json = new ObjectMapper().writeValueAsString(this.createNewBookDto());
+
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(this.createNewBook()));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + 1))
+                .header(HttpHeaders.IF_MATCH, "W/\"1.0\"")
+                .content(json)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar conflict quando o livro for alterado por outra requisição durante a atualização")
+    public void updateBookConflictTest() throws Exception {
+        // cenário
+        String json = new ObjectMapper().writeValueAsString(this.createNewBookDto());
+
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(this.createNewBook()));
+
+        BDDMockito.given(service.update(Mockito.any(Book.class)))
+                .willThrow(new OptimisticLockingFailureException("Livro alterado por outra requisição"));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + 1))
+                .content(json)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Livro alterado por outra requisição"));
     }
 
 
@@ -313,6 +668,133 @@ public class BookControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Deve importar livros a partir de um CSV")
+    public void importCsvTest() throws Exception {
+        // cenário
+        List<BookImportRow> rows = this.givenImportedRows();
+
+        String csv = "isbn,title,author\n" +
+                "001,\"Aventuras, volume 1\",Fulano\n" +
+                "\n" +
+                "002,,Ciclano\n";
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .content(csv);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(jsonPath("rows").value(2));
+
+        Assertions.assertThat(rows).hasSize(2);
+        Assertions.assertThat(rows.get(0).isValid()).isTrue();
+        Assertions.assertThat(rows.get(0).getBook().getTitle()).isEqualTo("Aventuras, volume 1");
+        Assertions.assertThat(rows.get(0).getBook().getIsbn()).isEqualTo("001");
+        Assertions.assertThat(rows.get(1).isValid()).isFalse();
+        Assertions.assertThat(rows.get(1).getRow()).isEqualTo(2);
+        Assertions.assertThat(rows.get(1).getError()).isEqualTo("Informe o título");
+    }
+
+
+    @Test
+    @DisplayName("Deve importar livros a partir de NDJSON, registrando os registros inválidos")
+    public void importNdjsonTest() throws Exception {
+        // cenário
+        List<BookImportRow> rows = this.givenImportedRows();
+
+        String ndjson = "{\"title\":\"Aventuras\",\"author\":\"Fulano\",\"isbn\":\"001\"}\n" +
+                "{\"title\":[1],\"author\":\"Fulano\",\"isbn\":\"002\"}\n" +
+                "{\"title\":\"Mistérios\",\"author\":\"Ciclano\",\"isbn\":\"003\"}\n";
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Assertions.assertThat(rows).extracting(BookImportRow::isValid).containsExactly(true, false, true);
+        Assertions.assertThat(rows).extracting(BookImportRow::getRow).containsExactly(1L, 2L, 3L);
+        Assertions.assertThat(rows.get(2).getBook().getIsbn()).isEqualTo("003");
+    }
+
+
+    @Test
+    @DisplayName("Deve importar livros a partir de um array JSON")
+    public void importJsonArrayTest() throws Exception {
+        // cenário
+        List<BookImportRow> rows = this.givenImportedRows();
+
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(this.createNewBookDto(), this.createNewBookDto()));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Assertions.assertThat(rows).hasSize(2).allMatch(BookImportRow::isValid);
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar erro ao importar um CSV sem as colunas obrigatórias")
+    public void importCsvWithoutHeaderTest() throws Exception {
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .content("001,Aventuras,Fulano\n");
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(jsonPath("errors", Matchers.hasSize(1)));
+
+        Mockito.verify(importService, Mockito.never()).importBooks(Mockito.any());
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private List<BookImportRow> givenImportedRows() {
+        List<BookImportRow> rows = new ArrayList<>();
+
+        BDDMockito.willAnswer(invocation -> {
+            Iterator<BookImportRow> iterator = invocation.getArgument(0);
+            iterator.forEachRemaining(rows::add);
+            return BookImportResult.builder().rows(rows.size()).errors(new ArrayList<>()).build();
+        }).given(importService).importBooks(Mockito.any(Iterator.class));
+
+        return rows;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private void givenStreamedBooks(Book... books) {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            Arrays.stream(books).forEach(action);
+            return null;
+        }).given(service).streamAll(Mockito.any(Consumer.class));
+
+        BDDMockito.given(service.getListVersion()).willReturn(new BookListVersion(1, 1L, UPDATED_AT));
+    }
+
     private BookDto createNewBookDto() {
         BookDto bookDto = BookDto.builder()
                 .author("Artur")
@@ -328,6 +810,8 @@ public class BookControllerTest {
                 .author("Artur")
                 .title("As aventuras")
                 .isbn("001")
+                .version(0L)
+                .updatedAt(UPDATED_AT)
                 .build();
         return savedBook;
     }
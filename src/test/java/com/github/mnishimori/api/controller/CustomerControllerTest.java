@@ -0,0 +1,117 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.customer.Customer;
+import com.github.mnishimori.domain.customer.CustomerService;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = CustomerController.class)
+@AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
+public class CustomerControllerTest {
+
+    static String CUSTOMER_API = "/api/customers";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    CustomerService customerService;
+
+    @MockBean
+    LoanService loanService;
+
+
+    @Test
+    @DisplayName("Deve obter um cliente pelo email")
+    public void getByEmailTest() throws Exception {
+        // cenário
+        BDDMockito.given(customerService.getByEmail(" Fulano@Email.com"))
+                .willReturn(Optional.of(Customer.builder().id(1L).email("fulano@email.com").name("Fulano").build()));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CUSTOMER_API)
+                .param("email", " Fulano@Email.com")
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("email").value("fulano@email.com"));
+    }
+
+
+    @Test
+    @DisplayName("Deve listar os empréstimos de um cliente a partir do último id")
+    public void getLoansTest() throws Exception {
+        // cenário
+        BDDMockito.given(customerService.getById(1L))
+                .willReturn(Optional.of(Customer.builder().id(1L).email("fulano@email.com").build()));
+
+        Book book = Book.builder().id(1L).isbn("123").build();
+        BDDMockito.given(loanService.getLoansByCustomer(1L, 10L, 2, false)).willReturn(Arrays.asList(
+                Loan.builder().id(11L).book(book).customer("Fulano").customerId(1L).build(),
+                Loan.builder().id(12L).book(book).customer("Fulano").customerId(1L).build()));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/1/loans?lastId=10&size=2"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].customerId").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("nextId").value(12));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar resource not found ao listar os empréstimos de um cliente inexistente")
+    public void getLoansCustomerNotFoundTest() throws Exception {
+        // cenário
+        BDDMockito.given(customerService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(CUSTOMER_API.concat("/1/loans"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        Mockito.verify(loanService, Mockito.never())
+                .getLoansByCustomer(Mockito.anyLong(), Mockito.anyLong(), Mockito.anyInt(), Mockito.anyBoolean());
+    }
+}
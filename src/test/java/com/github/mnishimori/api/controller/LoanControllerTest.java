@@ -4,40 +4,53 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.mnishimori.api.dto.LoanDto;
 import com.github.mnishimori.api.dto.ReturnedLoanDto;
+import com.github.mnishimori.api.http.BlockingCalls;
+import com.github.mnishimori.api.http.ConditionalRequests;
 import com.github.mnishimori.domain.book.Book;
 import com.github.mnishimori.domain.book.BookServiceImpl;
 import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
 import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanOutcome;
 import com.github.mnishimori.domain.loan.LoanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
 @AutoConfigureMockMvc
+@Import({SimpleMeterRegistry.class, ConditionalRequests.class, BlockingCalls.class})
 public class LoanControllerTest {
 
     private static final String LOAN_API = "/api/loans";
@@ -145,7 +158,7 @@ public class LoanControllerTest {
 
         BDDMockito
                 .given(loanService.save(Mockito.any(Loan.class)))
-                .willThrow(new BusinessException("Book already loaned"));
+                .willThrow(new BusinessException(BusinessRejection.BOOK_ALREADY_LOANED, "Book already loaned"));
 
         // execução
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -169,12 +182,18 @@ public class LoanControllerTest {
         // cenário
         ReturnedLoanDto returnedLoanDto = ReturnedLoanDto.builder().returned(true).build();
 
-        Loan loan = Loan.builder().id(1L).build();
+        Loan loan = Loan.builder().id(1L).version(0L).returned(false).build();
 
         BDDMockito
                 .given(loanService.getById(Mockito.anyLong()))
                 .willReturn(Optional.of(loan));
 
+        Loan changes = Loan.builder().id(1L).returned(true).version(0L).build();
+
+        BDDMockito
+                .given(loanService.update(changes))
+                .willReturn(Loan.builder().id(1L).returned(true).version(1L).build());
+
         String json = new ObjectMapper().writeValueAsString(returnedLoanDto);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -185,9 +204,44 @@ public class LoanControllerTest {
 
         mvc
                 .perform(request)
-                .andExpect(MockMvcResultMatchers.status().isOk());
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"1.1\""));
 
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+        Mockito.verify(loanService, Mockito.times(1)).update(changes);
+        Assertions.assertThat(loan.getReturned()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve retornar precondition failed ao devolver um empréstimo alterado após a versão do If-Match")
+    public void returnBookPreconditionFailedTest() throws Exception {
+        // cenário
+        ReturnedLoanDto returnedLoanDto = ReturnedLoanDto.builder().returned(true).build();
+
+        Loan loan = Loan.builder().id(1L).version(2L).build();
+
+        BDDMockito
+                .given(loanService.getById(Mockito.anyLong()))
+                .willReturn(Optional.of(loan));
+
+        BDDMockito
+                .given(loanService.update(Mockito.any(Loan.class)))
+                .willThrow(new OptimisticLockingFailureException("Empréstimo alterado por outra requisição"));
+
+        String json = new ObjectMapper().writeValueAsString(returnedLoanDto);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/1"))
+                .header(HttpHeaders.IF_MATCH, "\"1.1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        Mockito.verify(loanService).update(Loan.builder().id(1L).returned(true).version(1L).build());
+        Assertions.assertThat(loan.getVersion()).isEqualTo(2L);
     }
 
     @Test
@@ -223,7 +277,7 @@ public class LoanControllerTest {
         loan.setId(id);
 
         BDDMockito
-                .given(loanService.find(Mockito.any(Loan.class), Mockito.any(Pageable.class)))
+                .given(loanService.find(Mockito.any(Loan.class), Mockito.any(Pageable.class), Mockito.eq(false)))
                 .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0,10), 1));
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
@@ -234,9 +288,14 @@ public class LoanControllerTest {
                 .get(LOAN_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
         // verificação
         mvc
-                .perform(request)
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
@@ -253,7 +312,7 @@ public class LoanControllerTest {
 
         Loan loan = this.createLoan();
 
-        BDDMockito.given(loanService.getLoansByBook(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+        BDDMockito.given(loanService.getLoansByBook(Mockito.any(Book.class), Mockito.any(Pageable.class), Mockito.eq(false)))
                 .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 100), 1));
 
         // execução
@@ -264,9 +323,14 @@ public class LoanControllerTest {
                 .get(LOAN_API.concat("/" + book.getId() + "/loans"))
                 .accept(MediaType.APPLICATION_JSON);
 
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
         // verificação
         mvc
-                .perform(request)
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
@@ -276,6 +340,36 @@ public class LoanControllerTest {
 
 
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos com o total exato quando solicitado")
+    public void findLoanWithExactTotalTest() throws Exception {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(1L);
+
+        BDDMockito
+                .given(loanService.find(Mockito.any(Loan.class), Mockito.any(Pageable.class), Mockito.eq(true)))
+                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 1), 3));
+
+        // execução
+        MockHttpServletRequestBuilder request  = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Fulano&page=0&size=1&exactTotal=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(3));
+    }
+
+
     private Loan createLoan(){
         return Loan
                 .builder()
@@ -285,6 +379,97 @@ public class LoanControllerTest {
                 .build();
     }
 
+    @Test
+    @DisplayName("Deve realizar empréstimos em lote")
+    @SuppressWarnings("unchecked")
+    public void createAllTest() throws Exception {
+        // cenário
+        List<LoanDto> loansDto = Arrays.asList(
+                LoanDto.builder().isbn("001").customer("Fulano").customerEmail("fulano@email.com").build(),
+                LoanDto.builder().isbn("002").customer("Ciclano").customerEmail("ciclano@email.com").build());
+
+        String json = new ObjectMapper().writeValueAsString(loansDto);
+
+        BDDMockito
+                .given(loanService.checkoutAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(
+                        LoanOutcome.builder().loanId(1L).isbn("001").success(true).build(),
+                        LoanOutcome.failed(null, "002", "Book already loaned")));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].loanId").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].success").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].success").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].error").value("Book already loaned"));
+
+        ArgumentCaptor<List<Loan>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(loanService).checkoutAll(captor.capture());
+        Assertions.assertThat(captor.getValue())
+                .extracting(l -> l.getBook().getIsbn(), Loan::getCustomerEmail)
+                .containsExactly(
+                        Assertions.tuple("001", "fulano@email.com"),
+                        Assertions.tuple("002", "ciclano@email.com"));
+        Mockito.verify(bookService, Mockito.never()).getBookByIsbn(Mockito.anyString());
+    }
+
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote")
+    public void returnAllTest() throws Exception {
+        // cenário
+        BDDMockito
+                .given(loanService.returnAll(Arrays.asList(1L, 2L)))
+                .willReturn(Arrays.asList(
+                        LoanOutcome.builder().loanId(1L).success(true).build(),
+                        LoanOutcome.failed(2L, null, "Loan not found")));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]");
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].error").value("Loan not found"));
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar erro ao enviar um lote vazio")
+    public void emptyBatchTest() throws Exception {
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]");
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verify(loanService, Mockito.never()).returnAll(Mockito.anyList());
+    }
+
+
     private Book getBook() {
         return Book
                 .builder()
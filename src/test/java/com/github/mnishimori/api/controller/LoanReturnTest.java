@@ -0,0 +1,112 @@
+package com.github.mnishimori.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.api.dto.ReturnedLoanDto;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.UUID;
+
+/**
+ * Goes through the whole stack, open session in view included, so a change the controller makes to the loan it read
+ * would be flushed before the versioned update of the service.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LoanReturnTest {
+
+    static String LOAN_API = "/api/loans";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+
+    @Test
+    @DisplayName("Deve liberar o livro devolvido para um novo empréstimo")
+    public void loanReturnedBookAgainTest() throws Exception {
+        // cenário
+        String isbn = UUID.randomUUID().toString();
+        Book book = bookRepository.save(Book.builder().isbn(isbn).title("As aventuras").author("Fulano").build());
+
+        Long loanId = this.loan(isbn, "Fulano");
+
+        // execução
+        mvc
+                .perform(MockMvcRequestBuilders
+                        .patch(LOAN_API.concat("/" + loanId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ReturnedLoanDto.builder().returned(true).build())))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"" + loanId + ".1\""));
+
+        // verificação
+        Assertions.assertThat(this.available(book)).isTrue();
+
+        mvc
+                .perform(MockMvcRequestBuilders.get("/api/statistics/books/" + book.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("totalLoans").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("openLoans").value(0));
+
+        this.loan(isbn, "Ciclano");
+
+        Assertions.assertThat(this.available(book)).isFalse();
+
+        mvc
+                .perform(MockMvcRequestBuilders.get("/api/statistics/books/" + book.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("totalLoans").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("openLoans").value(1));
+    }
+
+    // read from the table, the book cached by id keeps the availability it was loaded with
+    private Boolean available(Book book) {
+        return jdbcTemplate.queryForObject("select available from book where id = ?", Boolean.class, book.getId());
+    }
+
+    private Long loan(String isbn, String customer) throws Exception {
+        LoanDto loanDto = LoanDto.builder()
+                .isbn(isbn)
+                .customer(customer)
+                .customerEmail(UUID.randomUUID() + "@email.com")
+                .build();
+
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders
+                        .post(LOAN_API)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loanDto)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn();
+
+        return objectMapper.readValue(result.getResponse().getContentAsString(), LoanDto.class).getId();
+    }
+}
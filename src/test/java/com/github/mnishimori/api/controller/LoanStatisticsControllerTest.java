@@ -0,0 +1,142 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookService;
+import com.github.mnishimori.domain.customer.Customer;
+import com.github.mnishimori.domain.customer.CustomerService;
+import com.github.mnishimori.domain.statistics.LoanCounters;
+import com.github.mnishimori.domain.statistics.LoanStatisticsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LoanStatisticsController.class)
+@AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
+public class LoanStatisticsControllerTest {
+
+    static String STATISTICS_API = "/api/statistics";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LoanStatisticsService statisticsService;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    CustomerService customerService;
+
+
+    @Test
+    @DisplayName("Deve obter as estatísticas de empréstimo de um livro")
+    public void getByBookTest() throws Exception {
+        // cenário
+        BDDMockito.given(bookService.getById(1L)).willReturn(Optional.of(Book.builder().id(1L).build()));
+        BDDMockito.given(statisticsService.getByBook(1L)).willReturn(LoanCounters.builder()
+                .totalLoans(10)
+                .openLoans(1)
+                .overdueLoans(1)
+                .lastLoanDate(LocalDate.of(2021, 6, 1))
+                .build());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(STATISTICS_API.concat("/books/1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("totalLoans").value(10))
+                .andExpect(MockMvcResultMatchers.jsonPath("openLoans").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("overdueLoans").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("lastLoanDate").value("2021-06-01"));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar resource not found ao obter as estatísticas de um livro inexistente")
+    public void getByBookNotFoundTest() throws Exception {
+        // cenário
+        BDDMockito.given(bookService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(STATISTICS_API.concat("/books/1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        Mockito.verify(statisticsService, Mockito.never()).getByBook(Mockito.anyLong());
+    }
+
+
+    @Test
+    @DisplayName("Deve obter as estatísticas de empréstimo de um cliente")
+    public void getByCustomerTest() throws Exception {
+        // cenário
+        BDDMockito.given(customerService.getById(1L)).willReturn(Optional.of(Customer.builder().id(1L).build()));
+        BDDMockito.given(statisticsService.getByCustomer(1L))
+                .willReturn(LoanCounters.builder().totalLoans(3).openLoans(2).build());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(STATISTICS_API.concat("/customers/1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("totalLoans").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("openLoans").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("overdueLoans").value(0));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar resource not found ao obter as estatísticas de um cliente inexistente")
+    public void getByCustomerNotFoundTest() throws Exception {
+        // cenário
+        BDDMockito.given(customerService.getById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(STATISTICS_API.concat("/customers/1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        // verificação
+        mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        Mockito.verify(statisticsService, Mockito.never()).getByCustomer(Mockito.anyLong());
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.config.SqlStatementMetricsFilter;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"library.web.execution.mode=offload", "library.web.execution.offload.threads=2"})
+@AutoConfigureMockMvc
+public class OffloadedRequestTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos com seus livros fora da thread da requisição")
+    public void findLoansTest() throws Exception {
+        // cenário
+        String customer = UUID.randomUUID().toString();
+        Book book = bookRepository.save(Book.builder().isbn(customer).title("As aventuras").author("Fulano").build());
+        loanRepository.save(Loan.builder().book(book).customer(customer).customerEmail(customer + "@email.com")
+                .loanDate(LocalDate.now()).build());
+
+        // execução
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get("/api/loans?customer=" + customer).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].bookDto.isbn").value(book.getIsbn()));
+
+        // the statements ran on an offload thread and are still counted for the request
+        DistributionSummary statements = meterRegistry.find(SqlStatementMetricsFilter.STATEMENTS_METRIC)
+                .tag("method", "GET")
+                .tag("uri", "/api/loans")
+                .summary();
+        Assertions.assertThat(statements).isNotNull();
+        Assertions.assertThat(statements.max()).isPositive();
+    }
+
+
+    @Test
+    @DisplayName("Deve responder bad request sem ocupar o pool quando o tamanho da página for inválido")
+    public void invalidSizeTest() throws Exception {
+        mvc
+                .perform(MockMvcRequestBuilders.get("/api/books/cursor?size=0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.mnishimori.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.reactive.ReactiveBookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReactiveBookController.class)
+@AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
+public class ReactiveBookControllerTest {
+
+    static String BOOK_API = "/api/reactive/books";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReactiveBookRepository repository;
+
+
+    @Test
+    @DisplayName("Deve transmitir todos os livros em NDJSON")
+    public void listAllTest() throws Exception {
+        // cenário
+        BDDMockito.given(repository.findAll())
+                .willReturn(Flux.just(this.createBook(1L, "001"), this.createBook(2L, "002")));
+
+        // execução
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API)
+                .accept(MediaType.APPLICATION_NDJSON);
+
+        MvcResult result = mvc
+                .perform(request)
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        String[] lines = mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+                .split("\n");
+
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(new ObjectMapper().readValue(lines[1], BookDto.class).getIsbn()).isEqualTo("002");
+    }
+
+
+    @Test
+    @DisplayName("Deve obter informações de um livro")
+    public void getBookDetailsTest() throws Exception {
+        // cenário
+        BDDMockito.given(repository.findById(1L)).willReturn(Mono.just(this.createBook(1L, "001")));
+
+        // execução
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value(1L))
+                .andExpect(MockMvcResultMatchers.jsonPath("isbn").value("001"));
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar resource not found quando o livro procurado não existir")
+    public void bookNotFoundTest() throws Exception {
+        // cenário
+        BDDMockito.given(repository.findById(1L)).willReturn(Mono.empty());
+
+        // execução
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total quando a página não estiver cheia")
+    public void findBooksTest() throws Exception {
+        // cenário
+        BDDMockito.given(repository.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(Flux.just(this.createBook(1L, "001")));
+
+        // execução
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/lista-paginada?title=aventuras&page=0&size=100"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100));
+
+        Mockito.verify(repository).find(Mockito.argThat(book -> "aventuras".equals(book.getTitle())), Mockito.eq(PageRequest.of(0, 100)));
+        Mockito.verify(repository, Mockito.never()).count(Mockito.any());
+    }
+
+    private Book createBook(Long id, String isbn) {
+        return Book.builder().id(id).author("Fulano").title("As aventuras").isbn(isbn).build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.mnishimori.api.controller;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.reactive.ReactiveLoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ReactiveLoanController.class)
+@AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
+public class ReactiveLoanControllerTest {
+
+    private static final String LOAN_API = "/api/reactive/loans";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ReactiveLoanRepository repository;
+
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos e contar o total quando a página estiver cheia")
+    public void findLoansTest() throws Exception {
+        // cenário
+        Loan loan = Loan.builder()
+                .id(1L)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now())
+                .book(Book.builder().id(1L).isbn("321").build())
+                .build();
+
+        BDDMockito.given(repository.find(Mockito.any(Loan.class), Mockito.any(Pageable.class)))
+                .willReturn(Flux.just(loan));
+        BDDMockito.given(repository.count(Mockito.any(Loan.class)))
+                .willReturn(Mono.just(5L));
+
+        // execução
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&page=2&size=1"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // verificação
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("content[0].bookDto.isbn").value("321"))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(5))
+                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(2));
+
+        Mockito.verify(repository).find(Mockito.argThat(filter -> "Fulano".equals(filter.getCustomer())), Mockito.eq(PageRequest.of(2, 1)));
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.mnishimori.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.customer.Customer;
+import com.github.mnishimori.domain.customer.CustomerRepository;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import com.github.mnishimori.support.SqlStatementBudget;
+import com.github.mnishimori.support.SqlStatements;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SQL statement budgets of the read and batch endpoints, over the real repositories: the numbers don't depend on
+ * how many loans are listed, so an N+1 or an extra count query fails here.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SqlStatementBudgetTest {
+
+    static final int LOANS = 5;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    Book book;
+
+    Customer customer;
+
+    List<Book> availableBooks;
+
+    @BeforeEach
+    public void setUp() {
+        String prefix = UUID.randomUUID().toString();
+        customer = customerRepository.save(Customer.builder().email(prefix + "@email.com").name("Fulano").build());
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i <= 2 * LOANS; i++) {
+            books.add(Book.builder().isbn(prefix + "-" + i).title("As aventuras " + i).author("Fulano").build());
+        }
+        books = bookRepository.saveAll(books);
+        book = books.get(0);
+        availableBooks = books.subList(LOANS + 1, books.size());
+
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 1; i <= LOANS; i++) {
+            LocalDate loanDate = LocalDate.now().minusDays(i);
+            loans.add(Loan.builder()
+                    .book(i == 1 ? book : books.get(i))
+                    .customer("Fulano")
+                    .customerEmail(customer.getEmail())
+                    .customerId(customer.getId())
+                    .loanDate(loanDate)
+                    .dueDate(loanDate.plusDays(4))
+                    .returned(true)
+                    .build());
+        }
+        loanRepository.saveAll(loans);
+    }
+
+
+    @Test
+    @DisplayName("Deve buscar empréstimos com seus livros usando apenas a consulta da página e a contagem")
+    @SqlStatementBudget(2)
+    public void findLoansTest() throws Exception {
+        this.perform(MockMvcRequestBuilders.get("/api/loans?customer=Fulano&exactTotal=true"));
+    }
+
+
+    @Test
+    @DisplayName("Deve buscar livros usando apenas a consulta da página e a contagem")
+    @SqlStatementBudget(2)
+    public void searchBooksTest() throws Exception {
+        this.perform(MockMvcRequestBuilders.get("/api/books/lista-paginada?author=Fulano&exactTotal=true"));
+    }
+
+
+    @Test
+    @DisplayName("Deve obter o histórico de um livro sem uma consulta por empréstimo")
+    @SqlStatementBudget(3)
+    public void loansByBookTest() throws Exception {
+        this.perform(MockMvcRequestBuilders.get("/api/loans/" + book.getId() + "/loans?exactTotal=true"));
+    }
+
+
+    @Test
+    @DisplayName("Deve listar os empréstimos de um cliente, incluindo os arquivados, sem uma consulta por empréstimo")
+    @SqlStatementBudget(3)
+    public void loansByCustomerTest() throws Exception {
+        this.perform(MockMvcRequestBuilders.get("/api/customers/" + customer.getId() + "/loans?includeArchived=true"));
+    }
+
+
+    @Test
+    @DisplayName("Deve registrar um lote de empréstimos com um número fixo de comandos")
+    public void checkoutAllTest() throws Exception {
+        // cenário
+        List<LoanDto> loans = new ArrayList<>();
+        for (Book availableBook : availableBooks) {
+            loans.add(LoanDto.builder()
+                    .isbn(availableBook.getIsbn())
+                    .customer("Ciclano")
+                    .customerEmail(UUID.randomUUID() + "@email.com")
+                    .build());
+        }
+
+        // execução
+        long statements = SqlStatements.count(() -> this.perform(MockMvcRequestBuilders
+                .post("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(this.json(loans))));
+
+        // verificação: books locked, customers looked up and inserted, books claimed, loans inserted, counters of books
+        // and customers merged, plus a call to each sequence when its block of ids runs out
+        Assertions.assertThat(statements).isLessThanOrEqualTo(9);
+    }
+
+    private void perform(MockHttpServletRequestBuilder request) {
+        try {
+            MvcResult result = mvc
+                    .perform(request.accept(MediaType.APPLICATION_JSON))
+                    .andReturn();
+
+            if (result.getRequest().isAsyncStarted()) {
+                result = mvc.perform(MockMvcRequestBuilders.asyncDispatch(result)).andReturn();
+            }
+            Assertions.assertThat(result.getResponse().getStatus()).isEqualTo(HttpStatus.OK.value());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
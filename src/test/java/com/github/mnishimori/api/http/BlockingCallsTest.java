@@ -0,0 +1,80 @@
+package com.github.mnishimori.api.http;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BlockingCallsTest {
+
+    @Test
+    @DisplayName("Deve executar a chamada na thread da requisição no modo platform")
+    public void platformModeTest() {
+        // cenário
+        BlockingCalls blockingCalls = new BlockingCalls("platform", 1, 0);
+
+        // execução
+        CompletableFuture<String> thread = blockingCalls.supply(() -> Thread.currentThread().getName());
+
+        // verificação
+        Assertions.assertThat(blockingCalls.isOffloading()).isFalse();
+        Assertions.assertThat(thread).isCompletedWithValue(Thread.currentThread().getName());
+    }
+
+
+    @Test
+    @DisplayName("Deve executar a chamada no pool limitado no modo offload")
+    public void offloadModeTest() {
+        // cenário
+        BlockingCalls blockingCalls = new BlockingCalls(BlockingCalls.OFFLOAD_MODE, 1, 0);
+
+        try {
+            // execução
+            String thread = blockingCalls.supply(() -> Thread.currentThread().getName()).join();
+
+            // verificação
+            Assertions.assertThat(thread).startsWith("request-offload-");
+        } finally {
+            blockingCalls.destroy();
+        }
+    }
+
+
+    @Test
+    @DisplayName("Deve responder service unavailable quando o pool e a fila estiverem cheios")
+    public void saturatedTest() throws Exception {
+        // cenário
+        BlockingCalls blockingCalls = new BlockingCalls(BlockingCalls.OFFLOAD_MODE, 1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            CompletableFuture<Boolean> running = blockingCalls.supply(() -> {
+                started.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await(5, TimeUnit.SECONDS);
+
+            // execução
+            Throwable exception = Assertions.catchThrowable(() -> blockingCalls.supply(() -> true));
+
+            // verificação
+            Assertions.assertThat(exception).isInstanceOf(ResponseStatusException.class);
+            Assertions.assertThat(((ResponseStatusException) exception).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+            release.countDown();
+            Assertions.assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            blockingCalls.destroy();
+        }
+    }
+}
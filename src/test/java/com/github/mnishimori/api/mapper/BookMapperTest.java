@@ -0,0 +1,51 @@
+package com.github.mnishimori.api.mapper;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.domain.book.Book;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BookMapperTest {
+
+    BookMapper mapper = new BookMapper();
+
+
+    @Test
+    @DisplayName("Deve converter um livro em dto")
+    public void toDtoTest() {
+        // cenário
+        Book book = Book.builder().id(1L).title("As aventuras").author("Fulano").isbn("123").build();
+
+        // execução
+        BookDto bookDto = mapper.toDto(book);
+
+        // verificação
+        Assertions.assertThat(bookDto).isEqualTo(new BookDto(1L, "As aventuras", "Fulano", "123"));
+    }
+
+
+    @Test
+    @DisplayName("Deve converter um dto em livro")
+    public void toEntityTest() {
+        // cenário
+        BookDto bookDto = BookDto.builder().title("As aventuras").author("Fulano").isbn("123").build();
+
+        // execução
+        Book book = mapper.toEntity(bookDto);
+
+        // verificação
+        Assertions.assertThat(book.getId()).isNull();
+        Assertions.assertThat(book.getTitle()).isEqualTo("As aventuras");
+        Assertions.assertThat(book.getAuthor()).isEqualTo("Fulano");
+        Assertions.assertThat(book.getIsbn()).isEqualTo("123");
+    }
+
+
+    @Test
+    @DisplayName("Deve retornar nulo ao converter um livro nulo")
+    public void nullTest() {
+        Assertions.assertThat(mapper.toDto(null)).isNull();
+        Assertions.assertThat(mapper.toEntity(null)).isNull();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.mnishimori.api.mapper;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+public class LoanMapperTest {
+
+    LoanMapper mapper = new LoanMapper(new BookMapper());
+
+
+    @Test
+    @DisplayName("Deve converter um empréstimo em dto com o livro")
+    public void toDtoTest() {
+        // cenário
+        Book book = Book.builder().id(1L).title("As aventuras").author("Fulano").isbn("123").build();
+        Loan loan = Loan.builder()
+                .id(2L)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .book(book)
+                .loanDate(LocalDate.now())
+                .build();
+
+        // execução
+        LoanDto loanDto = mapper.toDto(loan);
+
+        // verificação
+        Assertions.assertThat(loanDto.getId()).isEqualTo(2L);
+        Assertions.assertThat(loanDto.getCustomer()).isEqualTo("Fulano");
+        Assertions.assertThat(loanDto.getCustomerEmail()).isEqualTo("fulano@email.com");
+        Assertions.assertThat(loanDto.getIsbn()).isNull();
+        Assertions.assertThat(loanDto.getBookDto()).isEqualTo(new BookDto(1L, "As aventuras", "Fulano", "123"));
+    }
+
+
+    @Test
+    @DisplayName("Deve converter um dto em empréstimo usado como filtro")
+    public void toEntityTest() {
+        // cenário
+        LoanDto loanDto = LoanDto.builder()
+                .isbn("123")
+                .customer("Fulano")
+                .bookDto(BookDto.builder().id(1L).build())
+                .build();
+
+        // execução
+        Loan loan = mapper.toEntity(loanDto);
+
+        // verificação
+        Assertions.assertThat(loan.getId()).isNull();
+        Assertions.assertThat(loan.getCustomer()).isEqualTo("Fulano");
+        Assertions.assertThat(loan.getCustomerEmail()).isNull();
+        Assertions.assertThat(loan.getBook().getId()).isEqualTo(1L);
+        Assertions.assertThat(loan.getLoanDate()).isNull();
+        Assertions.assertThat(loan.getReturned()).isNull();
+    }
+}
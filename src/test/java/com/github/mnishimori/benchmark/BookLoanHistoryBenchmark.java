@@ -0,0 +1,148 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.LibraryApiApplication;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import com.github.mnishimori.domain.loan.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory cost of books with a long loan history. {@code loadBook} reads a book and uses it the way logging and hash
+ * sets do (toString, hashCode), which must not depend on the size of its history. The other two read the history
+ * itself: one page through {@code LoanService.getLoansByBook}, and the whole history, which is what touching a
+ * mapped collection would load. Run it with the GC profiler and compare {@code gc.alloc.rate.norm} (bytes per call):
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Dbenchmark.include=BookLoanHistoryBenchmark -Dbenchmark.args="-prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookLoanHistoryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class History {
+
+        static final int BOOKS = 10;
+
+        @Param({"1000", "5000"})
+        public int loansPerBook;
+
+        ConfigurableApplicationContext context;
+
+        EntityManagerFactory entityManagerFactory;
+
+        LoanService loanService;
+
+        List<Book> books;
+
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                            "spring.jpa.show-sql=false",
+                            "logging.level.root=WARN",
+                            "logging.file.name=")
+                    .run();
+
+            entityManagerFactory = context.getBean(EntityManagerFactory.class);
+            loanService = context.getBean(LoanService.class);
+
+            seed(context.getBean(BookRepository.class), context.getBean(LoanRepository.class));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        Book nextBook() {
+            return books.get(next++ % books.size());
+        }
+
+        private void seed(BookRepository bookRepository, LoanRepository loanRepository) {
+            List<Book> seeded = new ArrayList<>(BOOKS);
+            for (int i = 0; i < BOOKS; i++) {
+                seeded.add(Book.builder().title("Livro " + i).author("Autor " + i).isbn("isbn-" + i).build());
+            }
+            books = bookRepository.saveAll(seeded);
+
+            LocalDate firstLoan = LocalDate.now().minusDays(loansPerBook);
+            for (Book book : books) {
+                List<Loan> loans = new ArrayList<>(loansPerBook);
+                for (int i = 0; i < loansPerBook; i++) {
+                    LocalDate loanDate = firstLoan.plusDays(i);
+                    loans.add(Loan.builder()
+                            .book(book)
+                            .customer("Cliente " + i)
+                            .customerEmail("cliente" + (i % 500) + "@email.com")
+                            .loanDate(loanDate)
+                            .dueDate(loanDate.plusDays(4))
+                            .returned(true)
+                            .build());
+                }
+                loanRepository.saveAll(loans);
+            }
+        }
+    }
+
+    @Benchmark
+    public int loadBook(History history) {
+        EntityManager entityManager = history.entityManagerFactory.createEntityManager();
+        try {
+            Book book = entityManager.find(Book.class, history.nextBook().getId());
+
+            Set<Book> books = new HashSet<>();
+            books.add(book);
+            return book.toString().length() + books.size();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public Page<Loan> loanHistoryPage(History history) {
+        return history.loanService.getLoansByBook(history.nextBook(), PageRequest.of(0, 20), false);
+    }
+
+    @Benchmark
+    public Page<Loan> loanHistoryAll(History history) {
+        return history.loanService.getLoansByBook(history.nextBook(), Pageable.unpaged(), true);
+    }
+}
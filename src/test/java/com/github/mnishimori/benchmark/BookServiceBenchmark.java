@@ -0,0 +1,46 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.domain.book.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private final Book titleFilter = Book.builder().title("Livro 1").build();
+
+    private final Book authorFilter = Book.builder().author("Autor 7").build();
+
+    @Benchmark
+    public Page<Book> findByTitleIndexed(LibraryState state) {
+        return state.bookService.find(titleFilter, PageRequest.of(0, 20), true);
+    }
+
+    @Benchmark
+    public Page<Book> findByTitleDatabase(LibraryState state) {
+        // a sorted request can't be answered by the search index
+        return state.bookService.find(titleFilter, PageRequest.of(0, 20, Sort.by("id")), true);
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthorDatabaseCachedCount(LibraryState state) {
+        return state.bookService.find(authorFilter, PageRequest.of(0, 20, Sort.by("id")), false);
+    }
+}
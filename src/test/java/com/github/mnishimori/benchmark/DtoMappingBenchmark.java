@@ -0,0 +1,97 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.api.dto.BookDto;
+import com.github.mnishimori.api.dto.LoanDto;
+import com.github.mnishimori.api.mapper.BookMapper;
+import com.github.mnishimori.api.mapper.LoanMapper;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private BookMapper bookMapper;
+
+    private LoanMapper loanMapper;
+
+    private Book book;
+
+    private BookDto bookDto;
+
+    private Loan loan;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapper();
+        loanMapper = new LoanMapper(bookMapper);
+
+        book = Book.builder().id(1L).title("As aventuras").author("Fulano").isbn("123").build();
+        bookDto = BookDto.builder().title("As aventuras").author("Fulano").isbn("123").build();
+        loan = Loan.builder()
+                .id(1L)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .book(book)
+                .loanDate(LocalDate.now())
+                .build();
+
+        // warms up the ModelMapper type maps so only the per-call cost is measured
+        modelMapper.map(book, BookDto.class);
+        modelMapper.map(bookDto, Book.class);
+        modelMapper.map(loan, LoanDto.class);
+    }
+
+    @Benchmark
+    public BookDto bookToDtoModelMapper() {
+        return modelMapper.map(book, BookDto.class);
+    }
+
+    @Benchmark
+    public BookDto bookToDtoMapper() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book dtoToBookModelMapper() {
+        return modelMapper.map(bookDto, Book.class);
+    }
+
+    @Benchmark
+    public Book dtoToBookMapper() {
+        return bookMapper.toEntity(bookDto);
+    }
+
+    @Benchmark
+    public LoanDto loanToDtoModelMapper() {
+        LoanDto loanDto = modelMapper.map(loan, LoanDto.class);
+        loanDto.setBookDto(modelMapper.map(loan.getBook(), BookDto.class));
+        return loanDto;
+    }
+
+    @Benchmark
+    public LoanDto loanToDtoMapper() {
+        return loanMapper.toDto(loan);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.LibraryApiApplication;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.book.BookSearchIndex;
+import com.github.mnishimori.domain.book.BookService;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import com.github.mnishimori.domain.loan.LoanService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application on a random port (Springfox needs a servlet context) against a private embedded H2 database and seeds it with
+ * {@code datasetSize} books, one in every {@code LATE_LOAN_RATIO} of them out on a late loan.
+ * The dataset size can be overridden from the command line with {@code -p datasetSize=...}.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    static final int LATE_LOAN_RATIO = 10;
+
+    @Param({"1000", "10000"})
+    public int datasetSize;
+
+    ConfigurableApplicationContext context;
+
+    BookService bookService;
+
+    BookRepository bookRepository;
+
+    LoanService loanService;
+
+    LoanRepository loanRepository;
+
+    List<Book> availableBooks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.file.name=")
+                .run();
+
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        loanService = context.getBean(LoanService.class);
+        loanRepository = context.getBean(LoanRepository.class);
+
+        seed(context.getBean(BookSearchIndex.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private void seed(BookSearchIndex searchIndex) {
+        List<Book> books = new ArrayList<>(datasetSize);
+        for (int i = 0; i < datasetSize; i++) {
+            books.add(Book.builder()
+                    .title("Livro " + i)
+                    .author("Autor " + (i % 100))
+                    .isbn("isbn-" + i)
+                    .available(i % LATE_LOAN_RATIO != 0)
+                    .build());
+        }
+        books = bookRepository.saveAll(books);
+        books.forEach(searchIndex::index);
+
+        List<Loan> loans = new ArrayList<>();
+        availableBooks = new ArrayList<>();
+        LocalDate lateLoanDate = LocalDate.now().minusDays(10);
+        for (Book book : books) {
+            if (book.getAvailable()) {
+                availableBooks.add(book);
+            } else {
+                loans.add(Loan.builder()
+                        .book(book)
+                        .customer("Cliente " + book.getId())
+                        .customerEmail("cliente" + (book.getId() % 500) + "@email.com")
+                        .loanDate(lateLoanDate)
+                        .dueDate(lateLoanDate.plusDays(4))
+                        .returned(false)
+                        .build());
+            }
+        }
+        loanRepository.saveAll(loans);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    private int next;
+
+    /**
+     * Loans one of the seeded available books and returns it right away, so every invocation finds the book
+     * available again and the dataset doesn't drift between iterations.
+     */
+    @Benchmark
+    public Loan saveAndReturn(LibraryState state) {
+        Book book = state.availableBooks.get(next++ % state.availableBooks.size());
+
+        Loan loan = state.loanService.save(Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now())
+                .build());
+
+        loan.setReturned(true);
+        return state.loanService.update(loan);
+    }
+
+    @Benchmark
+    public List<Loan> getNewlyOverdueLoans(LibraryState state) {
+        return state.loanService.getNewlyOverdueLoans(0L, 500);
+    }
+}
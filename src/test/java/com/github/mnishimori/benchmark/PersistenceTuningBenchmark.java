@@ -0,0 +1,153 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.LibraryApiApplication;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import com.github.mnishimori.domain.loan.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the persistence settings on the BookRepository and LoanRepository paths: {@code untuned} turns off the
+ * JDBC batching of application.properties, {@code default} is application.properties as shipped and {@code perf} adds
+ * application-perf.properties on top of it.
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Dbenchmark.include=PersistenceTuningBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceTuningBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Settings {
+
+        static final int BOOKS = 5000;
+
+        static final int INSERT_SIZE = 200;
+
+        @Param({"untuned", "default", "perf"})
+        public String settings;
+
+        ConfigurableApplicationContext context;
+
+        BookRepository bookRepository;
+
+        LoanService loanService;
+
+        int inserted;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryApiApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                            "spring.jpa.show-sql=false",
+                            "logging.level.root=WARN",
+                            "logging.file.name=");
+
+            if ("untuned".equals(settings)) {
+                builder.properties(
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=1",
+                        "spring.jpa.properties.hibernate.order_inserts=false");
+            } else if ("perf".equals(settings)) {
+                builder.profiles("perf");
+            }
+
+            context = builder.run();
+            bookRepository = context.getBean(BookRepository.class);
+            loanService = context.getBean(LoanService.class);
+
+            seed(context.getBean(LoanRepository.class));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        List<Book> nextBooks() {
+            List<Book> books = new ArrayList<>(INSERT_SIZE);
+            for (int i = 0; i < INSERT_SIZE; i++) {
+                int n = inserted++;
+                books.add(Book.builder().title("Novo " + n).author("Autor").isbn("new-" + n).build());
+            }
+            return books;
+        }
+
+        private void seed(LoanRepository loanRepository) {
+            List<Book> books = new ArrayList<>(BOOKS);
+            for (int i = 0; i < BOOKS; i++) {
+                books.add(Book.builder().title("Livro " + i).author("Autor " + (i % 100)).isbn("isbn-" + i).available(false).build());
+            }
+            books = bookRepository.saveAll(books);
+
+            LocalDate loanDate = LocalDate.now().minusDays(10);
+            List<Loan> loans = new ArrayList<>(BOOKS);
+            for (Book book : books) {
+                loans.add(Loan.builder()
+                        .book(book)
+                        .customer("Cliente " + book.getId())
+                        .customerEmail("cliente" + (book.getId() % 500) + "@email.com")
+                        .loanDate(loanDate)
+                        .dueDate(loanDate.plusDays(4))
+                        .returned(false)
+                        .build());
+            }
+            loanRepository.saveAll(loans);
+        }
+    }
+
+    @Benchmark
+    public List<Book> insertBooks(Settings settings) {
+        return settings.bookRepository.saveAll(settings.nextBooks());
+    }
+
+    @Benchmark
+    public Page<Loan> loanPage(Settings settings) {
+        return settings.loanService.find(new Loan(), PageRequest.of(0, 500), false);
+    }
+
+    @Benchmark
+    public List<Loan> lateLoanScan(Settings settings) {
+        List<Loan> all = new ArrayList<>(Settings.BOOKS);
+        Long lastId = 0L;
+        List<Loan> page;
+        do {
+            page = settings.loanService.getNewlyOverdueLoans(lastId, 500);
+            all.addAll(page);
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 500);
+        return all;
+    }
+}
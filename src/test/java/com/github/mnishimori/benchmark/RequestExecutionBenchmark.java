@@ -0,0 +1,160 @@
+package com.github.mnishimori.benchmark;
+
+import com.github.mnishimori.LibraryApiApplication;
+import com.github.mnishimori.config.WebExecutionConfig;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the REST API under a slow database: {@code @Threads} HTTP clients (1000 by default, change with
+ * {@code -t}) call {@code GET /api/books/cursor} as fast as they can, while every JDBC connection checkout waits
+ * {@code dbLatencyMillis} before reaching the pool, like a round trip to a remote database. The score is requests per
+ * second for each {@code library.web.execution.mode}, with {@code offloadThreads} threads in the {@code offload} mode;
+ * the {@code virtual} mode only runs on JDK 21 or later.
+ *
+ * <pre>
+ * mvn -Pbenchmark -DskipTests verify -Dbenchmark.include=RequestExecutionBenchmark -Dbenchmark.args="-p dbLatencyMillis=50"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dhttp.maxConnections=1000")
+@Threads(1000)
+public class RequestExecutionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        static final int BOOKS = 1000;
+
+        @Param({"platform", "offload", "virtual"})
+        public String mode;
+
+        @Param({"200"})
+        public int offloadThreads;
+
+        @Param({"20"})
+        public long dbLatencyMillis;
+
+        ConfigurableApplicationContext context;
+
+        String baseUrl;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            if ("virtual".equals(mode) && !WebExecutionConfig.newVirtualThreadPerTaskExecutor().isPresent()) {
+                throw new IllegalStateException("Virtual threads need JDK 21 or later, running on Java "
+                        + System.getProperty("java.specification.version"));
+            }
+
+            context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                    .initializers(applicationContext -> applicationContext.getBeanFactory()
+                            .addBeanPostProcessor(new SlowDataSourcePostProcessor(dbLatencyMillis)))
+                    .properties(
+                            "server.port=0",
+                            WebExecutionConfig.MODE_PROPERTY + "=" + mode,
+                            "library.web.execution.offload.threads=" + offloadThreads,
+                            "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                            "spring.jpa.show-sql=false",
+                            "library.mail.outbox.enabled=false",
+                            "logging.level.root=WARN",
+                            "logging.file.name=")
+                    .run();
+
+            List<Book> books = new ArrayList<>(BOOKS);
+            for (int i = 0; i < BOOKS; i++) {
+                books.add(Book.builder().title("Livro " + i).author("Autor " + i).isbn("isbn-" + i).build());
+            }
+            context.getBean(BookRepository.class).saveAll(books);
+
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/books/cursor?size=20&lastId=";
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public int listBooks(Server server) throws IOException {
+        URL url = new URL(server.baseUrl + ThreadLocalRandom.current().nextInt(Server.BOOKS));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(30_000);
+        connection.setReadTimeout(30_000);
+
+        int status = connection.getResponseCode();
+        try (InputStream body = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            while (body.read(buffer) != -1) {
+                // drain so the keep-alive connection can be reused
+            }
+        }
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new IllegalStateException("Unexpected status " + status);
+        }
+        return status;
+    }
+
+    static class SlowDataSourcePostProcessor implements BeanPostProcessor {
+
+        private final long latencyMillis;
+
+        SlowDataSourcePostProcessor(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource)) {
+                return bean;
+            }
+
+            return new DelegatingDataSource((DataSource) bean) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException(e);
+                    }
+                    return super.getConnection();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.mnishimori.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the loan and isbn lookups against the schema as migrated up to V1 (no indexes, nullable status, "is null or
+ * = false" predicates) and up to V2 (indexes, non-null status, plain equality). The query plan H2 picks for each
+ * query is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaQueryPlanBenchmark {
+
+    private static final String V1_OPEN = "(returned is null or returned = false)";
+
+    private static final String V2_OPEN = "returned = false";
+
+    @Param({"1", "2"})
+    public String schemaVersion;
+
+    @Param({"100000"})
+    public int datasetSize;
+
+    private Connection connection;
+
+    private PreparedStatement lateLoans;
+
+    private PreparedStatement openLoanOfBook;
+
+    private PreparedStatement bookByIsbn;
+
+    private LocalDate lateLoanDate;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:plan-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        Flyway.configure().dataSource(url, "sa", "").target(schemaVersion).load().migrate();
+
+        connection = DriverManager.getConnection(url, "sa", "");
+        this.seed();
+
+        String open = "1".equals(schemaVersion) ? V1_OPEN : V2_OPEN;
+        String lateLoansSql = "select id from loan where loan_date <= ? and " + open;
+        String openLoanOfBookSql = "select count(id) from loan where id_book = ? and " + open;
+        String bookByIsbnSql = "select id from book where isbn = ?";
+
+        lateLoanDate = LocalDate.now().minusDays(4);
+        lateLoans = connection.prepareStatement(lateLoansSql);
+        openLoanOfBook = connection.prepareStatement(openLoanOfBookSql);
+        bookByIsbn = connection.prepareStatement(bookByIsbnSql);
+
+        this.explain(lateLoansSql.replace("?", "date '" + lateLoanDate + "'"));
+        this.explain(openLoanOfBookSql.replace("?", "1"));
+        this.explain(bookByIsbnSql.replace("?", "'isbn-1'"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void findLateLoans(Blackhole blackhole) throws SQLException {
+        lateLoans.setDate(1, Date.valueOf(lateLoanDate));
+        this.consume(lateLoans, blackhole);
+    }
+
+    @Benchmark
+    public void existsOpenLoanOfBook(Blackhole blackhole) throws SQLException {
+        openLoanOfBook.setLong(1, this.nextId());
+        this.consume(openLoanOfBook, blackhole);
+    }
+
+    @Benchmark
+    public void findBookByIsbn(Blackhole blackhole) throws SQLException {
+        bookByIsbn.setString(1, "isbn-" + this.nextId());
+        this.consume(bookByIsbn, blackhole);
+    }
+
+    private long nextId() {
+        next = next % datasetSize + 1;
+        return next;
+    }
+
+    private void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * One loan per book; one in ten is still open, with a third of those recorded with a null status the way rows
+     * written before V2 were.
+     */
+    private void seed() throws SQLException {
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement books = connection.prepareStatement("insert into book (id, title, author, isbn) values (?, ?, ?, ?)");
+             PreparedStatement loans = connection.prepareStatement("insert into loan (id, customer, customer_email, id_book, loan_date, returned) values (?, ?, ?, ?, ?, ?)")) {
+
+            for (int id = 1; id <= datasetSize; id++) {
+                books.setLong(1, id);
+                books.setString(2, "Livro " + id);
+                books.setString(3, "Autor " + id % 100);
+                books.setString(4, "isbn-" + id);
+                books.addBatch();
+
+                loans.setLong(1, id);
+                loans.setString(2, "Cliente " + id);
+                loans.setString(3, "cliente" + id + "@email.com");
+                loans.setLong(4, id);
+                loans.setDate(5, Date.valueOf(LocalDate.now().minusDays(id % 30)));
+                if (id % 10 != 0) {
+                    loans.setBoolean(6, true);
+                } else if (id % 30 == 0 && "1".equals(schemaVersion)) {
+                    loans.setNull(6, java.sql.Types.BOOLEAN);
+                } else {
+                    loans.setBoolean(6, false);
+                }
+                loans.addBatch();
+
+                if (id % 1000 == 0) {
+                    books.executeBatch();
+                    loans.executeBatch();
+                }
+            }
+
+            books.executeBatch();
+            loans.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze");
+        }
+    }
+
+    private void explain(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("explain " + sql)) {
+            while (plan.next()) {
+                System.out.println("[V" + schemaVersion + "] " + plan.getString(1).replaceAll("\\s+", " "));
+            }
+        }
+    }
+}
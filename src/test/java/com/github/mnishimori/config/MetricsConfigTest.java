@@ -0,0 +1,64 @@
+package com.github.mnishimori.config;
+
+import com.github.mnishimori.domain.book.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class MetricsConfigTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Deve medir o tempo das chamadas aos serviços e repositórios")
+    public void serviceAndRepositoryTimersTest() {
+        // execução
+        bookService.getById(Long.MAX_VALUE);
+
+        // verificação
+        Timer serviceTimer = meterRegistry.find(MetricsConfig.SERVICE_METRIC)
+                .tag("class", "BookServiceImpl")
+                .tag("method", "getById")
+                .tag("exception", "none")
+                .timer();
+
+        Timer repositoryTimer = meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "BookRepository")
+                .tag("method", "findById")
+                .timer();
+
+        Assertions.assertThat(serviceTimer).isNotNull();
+        Assertions.assertThat(serviceTimer.count()).isPositive();
+        Assertions.assertThat(repositoryTimer).isNotNull();
+        Assertions.assertThat(repositoryTimer.count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve registrar a exceção lançada pelo serviço")
+    public void serviceExceptionTagTest() {
+        // execução
+        Assertions.assertThatThrownBy(() -> bookService.update(null)).isInstanceOf(IllegalArgumentException.class);
+
+        // verificação
+        Timer serviceTimer = meterRegistry.find(MetricsConfig.SERVICE_METRIC)
+                .tag("method", "update")
+                .tag("exception", "IllegalArgumentException")
+                .timer();
+
+        Assertions.assertThat(serviceTimer).isNotNull();
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.mnishimori.config;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = PersistenceMetricsConfig.STATISTICS_PROPERTY + "=true")
+@AutoConfigureMockMvc
+public class PersistenceMetricsConfigTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    SqlStatementCounter statementCounter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Deve contar os comandos SQL da thread atual")
+    public void statementCounterTest() {
+        // cenário
+        long before = statementCounter.count();
+
+        // execução
+        bookRepository.existsByIsbn("123");
+
+        // verificação
+        Assertions.assertThat(statementCounter.count() - before).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar os comandos SQL de cada requisição por padrão de uri")
+    public void requestStatementsTest() throws Exception {
+        // cenário
+        bookRepository.save(Book.builder().isbn("metrics-001").title("As aventuras").author("Fulano").build());
+
+        // execução
+        MvcResult result = mvc
+                .perform(MockMvcRequestBuilders.get("/api/books/cursor").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mvc
+                .perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        // verificação
+        DistributionSummary statements = meterRegistry.find(SqlStatementMetricsFilter.STATEMENTS_METRIC)
+                .tag("method", "GET")
+                .tag("uri", "/api/books/cursor")
+                .summary();
+
+        // one select of the page
+        Assertions.assertThat(statements).isNotNull();
+        Assertions.assertThat(statements.max()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve publicar as estatísticas do Hibernate e as métricas do pool de conexões")
+    public void hibernateAndPoolMetricsTest() {
+        // execução
+        bookRepository.findById(Long.MAX_VALUE);
+
+        // verificação
+        Assertions.assertThat(meterRegistry.get(PersistenceMetricsConfig.HIBERNATE_METRIC_PREFIX + "statements")
+                .functionCounter().count()).isPositive();
+        Assertions.assertThat(meterRegistry.get(PersistenceMetricsConfig.HIBERNATE_METRIC_PREFIX + "sessions")
+                .functionCounter().count()).isPositive();
+        Assertions.assertThat(meterRegistry.get(PersistenceMetricsConfig.HIBERNATE_METRIC_PREFIX + "entities")
+                .tag("operation", "load").functionCounter()).isNotNull();
+        Assertions.assertThat(meterRegistry.get(PersistenceMetricsConfig.HIBERNATE_METRIC_PREFIX + "query-plan-cache.hit-ratio")
+                .gauge()).isNotNull();
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections.active").gauge()).isNotNull();
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections.acquire").timer().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Não deve publicar as estatísticas do Hibernate por padrão")
+    public void statisticsDisabledByDefaultTest() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(PersistenceMetricsConfig.class)
+                .withBean(SimpleMeterRegistry.class)
+                .run(context -> Assertions.assertThat(context).doesNotHaveBean("hibernateStatisticsMetrics"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.mnishimori.config;
+
+import io.r2dbc.h2.H2ConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class R2dbcConfigTest {
+
+    @Test
+    @DisplayName("Deve converter a URL JDBC do H2 em memória para R2DBC")
+    public void h2MemoryUrlTest() {
+        // cenário
+        String jdbcUrl = "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+        // execução
+        String url = R2dbcConfig.toR2dbcUrl(jdbcUrl);
+
+        // verificação
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url);
+        Assertions.assertThat(options.getValue(ConnectionFactoryOptions.DRIVER)).isEqualTo("h2");
+        Assertions.assertThat(options.getValue(ConnectionFactoryOptions.PROTOCOL)).isEqualTo("mem");
+        Assertions.assertThat(options.getValue(ConnectionFactoryOptions.DATABASE)).isEqualTo("testdb");
+        Assertions.assertThat(options.getValue(H2ConnectionFactoryProvider.OPTIONS))
+                .isEqualTo("DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+    }
+
+    @Test
+    @DisplayName("Deve converter a URL JDBC de outros bancos trocando apenas o esquema")
+    public void otherDatabaseUrlTest() {
+        // execução
+        String url = R2dbcConfig.toR2dbcUrl("jdbc:postgresql://localhost:5432/library");
+
+        // verificação
+        Assertions.assertThat(url).isEqualTo("r2dbc:postgresql://localhost:5432/library");
+    }
+
+    @Test
+    @DisplayName("Deve recusar uma URL que não seja JDBC")
+    public void invalidUrlTest() {
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> R2dbcConfig.toR2dbcUrl("r2dbc:h2:mem:///testdb"));
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.mnishimori.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class WebExecutionConfigTest {
+
+    ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(WebExecutionConfig.class);
+
+
+    @Test
+    @DisplayName("Deve manter o pool do Tomcat no modo platform")
+    public void platformModeTest() {
+        contextRunner
+                .withPropertyValues(WebExecutionConfig.MODE_PROPERTY + "=platform")
+                .run(context -> Assertions.assertThat(context).doesNotHaveBean("virtualThreadRequestExecutor"));
+    }
+
+
+    @Test
+    @DisplayName("Deve executar as requisições em threads virtuais no modo virtual")
+    @SuppressWarnings("unchecked")
+    public void virtualModeTest() {
+        Assumptions.assumeTrue(WebExecutionConfig.newVirtualThreadPerTaskExecutor().isPresent(), "requer JDK 21 ou superior");
+
+        contextRunner
+                .withPropertyValues(WebExecutionConfig.MODE_PROPERTY + "=virtual")
+                .run(context -> {
+                    // cenário
+                    ProtocolHandler protocolHandler = Mockito.mock(ProtocolHandler.class);
+
+                    // execução
+                    context.getBean("virtualThreadRequestExecutor", TomcatProtocolHandlerCustomizer.class).customize(protocolHandler);
+
+                    // verificação
+                    ArgumentCaptor<Executor> executor = ArgumentCaptor.forClass(Executor.class);
+                    Mockito.verify(protocolHandler).setExecutor(executor.capture());
+
+                    Boolean virtual = CompletableFuture
+                            .supplyAsync(() -> Thread.currentThread().toString().startsWith("VirtualThread"), executor.getValue())
+                            .join();
+                    Assertions.assertThat(virtual).isTrue();
+                });
+    }
+
+
+    @Test
+    @DisplayName("Deve manter o pool do Tomcat no modo virtual quando a JVM não tem threads virtuais")
+    @SuppressWarnings("unchecked")
+    public void virtualModeFallbackTest() {
+        Assumptions.assumeFalse(WebExecutionConfig.newVirtualThreadPerTaskExecutor().isPresent(), "requer JDK anterior ao 21");
+
+        contextRunner
+                .withPropertyValues(WebExecutionConfig.MODE_PROPERTY + "=virtual")
+                .run(context -> {
+                    // cenário
+                    ProtocolHandler protocolHandler = Mockito.mock(ProtocolHandler.class);
+
+                    // execução
+                    context.getBean("virtualThreadRequestExecutor", TomcatProtocolHandlerCustomizer.class).customize(protocolHandler);
+
+                    // verificação
+                    Mockito.verify(protocolHandler, Mockito.never()).setExecutor(Mockito.any());
+                });
+    }
+}
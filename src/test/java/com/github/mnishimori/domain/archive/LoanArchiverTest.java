@@ -0,0 +1,117 @@
+package com.github.mnishimori.domain.archive;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({LoanArchiver.class, LoanArchiveProperties.class, SimpleMeterRegistry.class})
+public class LoanArchiverTest {
+
+    @Autowired
+    LoanArchiver archiver;
+
+    @Autowired
+    LoanArchiveProperties properties;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    Book book;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setRetention(Duration.ofDays(365));
+        properties.setBatchSize(2);
+        properties.setPause(Duration.ZERO);
+
+        book = entityManager.persist(Book.builder().isbn("001").title("As aventuras").author("Fulano").build());
+    }
+
+
+    @Test
+    @DisplayName("Deve arquivar em lotes apenas os empréstimos devolvidos mais antigos que a retenção")
+    public void archiveTest() {
+        // cenário
+        LocalDate old = LocalDate.now().minusDays(400);
+        Loan oldReturned = this.persistLoan(old, true);
+        this.persistLoan(old, true);
+        this.persistLoan(old, true);
+        Loan oldOpen = this.persistLoan(old, false);
+        Loan recentReturned = this.persistLoan(LocalDate.now().minusDays(10), true);
+        entityManager.flush();
+        entityManager.clear();
+
+        // execução
+        int archived = archiver.archive();
+        entityManager.clear();
+
+        // verificação
+        Assertions.assertThat(archived).isEqualTo(3);
+        Assertions.assertThat(loanRepository.findAll()).extracting(Loan::getId)
+                .containsExactlyInAnyOrder(oldOpen.getId(), recentReturned.getId());
+
+        ArchivedLoan archivedLoan = archivedLoanRepository.findById(oldReturned.getId()).get();
+        Assertions.assertThat(archivedLoan.getCustomer()).isEqualTo("Fulano");
+        Assertions.assertThat(archivedLoan.getLoanDate()).isEqualTo(old);
+        Assertions.assertThat(archivedLoan.getArchivedAt()).isNotNull();
+
+        Assertions.assertThat(archiver.archive()).isZero();
+    }
+
+
+    @Test
+    @DisplayName("Deve obter o histórico arquivado de um livro com seus livros")
+    public void findByBookTest() {
+        // cenário
+        this.persistLoan(LocalDate.now().minusDays(400), true);
+        this.persistLoan(LocalDate.now().minusDays(500), true);
+        entityManager.flush();
+        archiver.archive();
+        entityManager.clear();
+
+        // execução
+        Page<ArchivedLoan> page = archivedLoanRepository.findByBook(book.getId(), PageRequest.of(0, 1));
+
+        // verificação
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(page.getContent()).hasSize(1);
+        Assertions.assertThat(page.getContent().get(0).toLoan().getBook().getIsbn()).isEqualTo("001");
+    }
+
+    private Loan persistLoan(LocalDate loanDate, boolean returned) {
+        return entityManager.persist(Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(loanDate)
+                .dueDate(loanDate.plusDays(4))
+                .returned(returned)
+                .build());
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.mnishimori.domain.book;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookCacheTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    Cache booksById;
+
+    Cache booksByIsbn;
+
+    @BeforeEach
+    public void setUp() {
+        booksById = cacheManager.getCache(BookRepository.CACHE_BY_ID);
+        booksByIsbn = cacheManager.getCache(BookRepository.CACHE_BY_ISBN);
+    }
+
+    @Test
+    @DisplayName("Deve guardar em cache o livro buscado por id e por isbn")
+    public void cacheLookupsTest() {
+        // cenário
+        Book book = service.save(this.createNewBook());
+
+        // execução
+        Optional<Book> byId = repository.findById(book.getId());
+        Optional<Book> byIsbn = repository.findByIsbn(book.getIsbn());
+
+        // verificação
+        Assertions.assertThat(byId).isPresent();
+        Assertions.assertThat(byIsbn).isPresent();
+        Assertions.assertThat(booksById.get(book.getId())).isNotNull();
+        Assertions.assertThat(booksByIsbn.get(book.getIsbn())).isNotNull();
+        Assertions.assertThat(repository.findById(book.getId()).get()).isSameAs(byId.get());
+    }
+
+    @Test
+    @DisplayName("Não deve guardar em cache a busca por um livro inexistente")
+    public void missingBookNotCachedTest() {
+        // execução
+        Optional<Book> book = repository.findById(Long.MAX_VALUE);
+
+        // verificação
+        Assertions.assertThat(book).isNotPresent();
+        Assertions.assertThat(booksById.get(Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve remover do cache o livro atualizado")
+    public void updateEvictsTest() {
+        // cenário
+        Book book = service.save(this.createNewBook());
+        Book cachedBook = repository.findById(book.getId()).get();
+        repository.findByIsbn(book.getIsbn());
+
+        // execução
+        cachedBook.setTitle("Novo título");
+        service.update(cachedBook);
+
+        // verificação
+        Assertions.assertThat(booksById.get(book.getId())).isNull();
+        Assertions.assertThat(booksByIsbn.get(book.getIsbn())).isNull();
+        Assertions.assertThat(repository.findById(book.getId()).get().getTitle()).isEqualTo("Novo título");
+    }
+
+    @Test
+    @DisplayName("Deve remover do cache o livro excluído")
+    public void deleteEvictsTest() {
+        // cenário
+        Book book = service.save(this.createNewBook());
+        Book cachedBook = repository.findById(book.getId()).get();
+        repository.findByIsbn(book.getIsbn());
+
+        // execução
+        service.delete(cachedBook);
+
+        // verificação
+        Assertions.assertThat(booksById.get(book.getId())).isNull();
+        Assertions.assertThat(booksByIsbn.get(book.getIsbn())).isNull();
+        Assertions.assertThat(repository.findById(book.getId())).isNotPresent();
+    }
+
+    private Book createNewBook() {
+        return Book.builder().title("As aventuras").author("Fulano").isbn(UUID.randomUUID().toString()).build();
+    }
+}
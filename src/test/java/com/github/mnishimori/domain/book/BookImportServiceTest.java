@@ -0,0 +1,97 @@
+package com.github.mnishimori.domain.book;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "library.books.import.chunk-size=2")
+@Import({BookImportServiceImpl.class, BookSearchIndex.class})
+public class BookImportServiceTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookImportService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    BookSearchIndex searchIndex;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+
+    @Test
+    @DisplayName("Deve importar os livros válidos e registrar os erros por linha")
+    public void importBooksTest() {
+        // cenário
+        entityManager.persist(this.createBook("001"));
+
+        List<BookImportRow> rows = Arrays.asList(
+                BookImportRow.valid(1, this.createBook("001")),
+                BookImportRow.valid(2, this.createBook("002")),
+                BookImportRow.invalid(3, "003", "Informe o título"),
+                BookImportRow.valid(4, this.createBook("004")),
+                BookImportRow.valid(5, this.createBook("004")),
+                BookImportRow.valid(6, this.createBook("006")));
+
+        // execução
+        BookImportResult result = service.importBooks(rows.iterator());
+
+        // verificação
+        Assertions.assertThat(result.getRows()).isEqualTo(6);
+        Assertions.assertThat(result.getImported()).isEqualTo(3);
+        Assertions.assertThat(result.getFailed()).isEqualTo(3);
+        Assertions.assertThat(result.getRowsPerSecond()).isPositive();
+        Assertions.assertThat(result.getErrors())
+                .extracting(BookImportError::getRow, BookImportError::getMessage)
+                .containsExactly(
+                        Assertions.tuple(1L, "Isbn já cadastrado"),
+                        Assertions.tuple(3L, "Informe o título"),
+                        Assertions.tuple(5L, "Isbn já cadastrado"));
+
+        Assertions.assertThat(repository.count()).isEqualTo(4);
+        Assertions.assertThat(repository.findByIsbn("006")).isPresent();
+        Assertions.assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+
+    @Test
+    @DisplayName("Deve limitar a quantidade de erros detalhados no resultado")
+    public void limitErrorsTest() {
+        // cenário
+        BookImportService limitedService = new BookImportServiceImpl(repository, searchIndex, transactionManager, 2, 1);
+
+        List<BookImportRow> rows = Arrays.asList(
+                BookImportRow.invalid(1, null, "Registro inválido"),
+                BookImportRow.invalid(2, null, "Registro inválido"));
+
+        // execução
+        BookImportResult result = limitedService.importBooks(rows.iterator());
+
+        // verificação
+        Assertions.assertThat(result.getFailed()).isEqualTo(2);
+        Assertions.assertThat(result.getErrors()).hasSize(1);
+    }
+
+
+    private Book createBook(String isbn) {
+        return Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
+    }
+}
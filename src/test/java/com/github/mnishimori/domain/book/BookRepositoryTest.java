@@ -1,5 +1,7 @@
 package com.github.mnishimori.domain.book;
 
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.support.SqlStatements;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,10 +9,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.PersistenceException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -99,6 +109,197 @@ public class BookRepositoryTest {
     }
 
 
+    @Test
+    @DisplayName("Deve percorrer todos os livros ordenados por id")
+    public void streamAllTest() {
+        // cenário
+        Book book = this.createNewBook();
+        Book otherBook = Book.builder().title("Outras aventuras").author("Beltrano").isbn("321").build();
+        entityManager.persist(book);
+        entityManager.persist(otherBook);
+
+        // execução
+        List<Long> ids;
+        try (Stream<Book> books = repository.streamAll()) {
+            ids = books.map(Book::getId).collect(Collectors.toList());
+        }
+
+        // verificação
+        Assertions.assertThat(ids).containsExactly(book.getId(), otherBook.getId());
+    }
+
+
+    @Test
+    @DisplayName("Deve listar livros com id maior que o informado")
+    public void findByIdGreaterThanTest() {
+        // cenário
+        Book book = this.createNewBook();
+        Book otherBook = Book.builder().title("Outras aventuras").author("Beltrano").isbn("321").build();
+        entityManager.persist(book);
+        entityManager.persist(otherBook);
+        entityManager.flush();
+
+        // execução
+        List<Book> books = SqlStatements.atMost(1, () ->
+                repository.findByIdGreaterThanOrderByIdAsc(book.getId(), PageRequest.of(0, 10)));
+
+        // verificação
+        Assertions.assertThat(books).containsExactly(otherBook);
+    }
+
+
+    @Test
+    @DisplayName("Deve emprestar um livro disponível apenas uma vez")
+    public void checkoutTest() {
+        // cenário
+        Book book = this.createNewBook();
+        entityManager.persist(book);
+        entityManager.flush();
+
+        // execução
+        int firstCheckout = SqlStatements.atMost(1, () -> repository.checkout(book.getId()));
+        int secondCheckout = SqlStatements.atMost(1, () -> repository.checkout(book.getId()));
+
+        // verificação
+        Assertions.assertThat(firstCheckout).isEqualTo(1);
+        Assertions.assertThat(secondCheckout).isZero();
+    }
+
+
+    @Test
+    @DisplayName("Deve liberar o livro apenas quando não houver empréstimo em aberto")
+    public void checkinTest() {
+        // cenário
+        Book book = this.createNewBook();
+        book.setAvailable(false);
+        entityManager.persist(book);
+
+        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+        entityManager.persist(loan);
+        entityManager.flush();
+
+        // execução
+        int checkinWithOpenLoan = SqlStatements.atMost(1, () -> repository.checkin(book.getId()));
+
+        loan.setReturned(true);
+        int checkinAfterReturn = repository.checkin(book.getId());
+
+        // verificação
+        Assertions.assertThat(checkinWithOpenLoan).isZero();
+        Assertions.assertThat(checkinAfterReturn).isEqualTo(1);
+    }
+
+
+    @Test
+    @DisplayName("Deve emprestar e liberar livros em lote")
+    public void checkoutAndCheckinAllTest() {
+        // cenário
+        Book book = Book.builder().title("Aventuras").author("Fulano").isbn("001").build();
+        Book otherBook = Book.builder().title("Mistérios").author("Ciclano").isbn("002").build();
+        entityManager.persist(book);
+        entityManager.persist(otherBook);
+        entityManager.flush();
+        List<Long> ids = Arrays.asList(book.getId(), otherBook.getId());
+
+        // execução: one statement each, whatever the number of books
+        List<Book> found = SqlStatements.atMost(1, () ->
+                repository.findAllByIsbnForUpdate(Arrays.asList("001", "002", "003")));
+        int checkedOut = SqlStatements.atMost(1, () -> repository.checkoutAll(ids));
+        int checkedOutAgain = SqlStatements.atMost(1, () -> repository.checkoutAll(ids));
+        int checkedIn = SqlStatements.atMost(1, () -> repository.checkinAll(ids));
+
+        // verificação
+        Assertions.assertThat(found).extracting(Book::getIsbn).containsExactlyInAnyOrder("001", "002");
+        Assertions.assertThat(checkedOut).isEqualTo(2);
+        Assertions.assertThat(checkedOutAgain).isZero();
+        Assertions.assertThat(checkedIn).isEqualTo(2);
+    }
+
+
+    @Test
+    @DisplayName("Não deve permitir dois livros com o mesmo isbn")
+    public void uniqueIsbnTest() {
+        // cenário
+        entityManager.persist(this.createNewBook());
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> {
+            entityManager.persist(this.createNewBook());
+            entityManager.flush();
+        });
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(PersistenceException.class);
+    }
+
+
+    @Test
+    @DisplayName("Deve incrementar a versão do livro a cada alteração")
+    public void versionTest() {
+        // cenário
+        Book book = entityManager.persistFlushFind(this.createNewBook());
+        Long version = book.getVersion();
+
+        // execução
+        book.setTitle("Outras aventuras");
+        entityManager.flush();
+
+        // verificação
+        Assertions.assertThat(book.getVersion()).isEqualTo(version + 1);
+        Assertions.assertThat(book.getUpdatedAt()).isNotNull();
+    }
+
+
+    @Test
+    @DisplayName("Deve atualizar o livro apenas na versão informada")
+    public void updateDetailsTest() {
+        // cenário
+        Book book = entityManager.persistFlushFind(this.createNewBook());
+        Long version = book.getVersion();
+        LocalDateTime updatedAt = LocalDateTime.now().withNano(0);
+        entityManager.clear();
+
+        // execução
+        int stale = repository.updateDetails(book.getId(), version + 1, "Outro título", "Outro autor", updatedAt);
+        int updated = repository.updateDetails(book.getId(), version, "Novo título", "Novo autor", updatedAt);
+
+        // verificação
+        Book updatedBook = entityManager.find(Book.class, book.getId());
+
+        Assertions.assertThat(stale).isZero();
+        Assertions.assertThat(updated).isEqualTo(1);
+        Assertions.assertThat(updatedBook.getTitle()).isEqualTo("Novo título");
+        Assertions.assertThat(updatedBook.getAuthor()).isEqualTo("Novo autor");
+        Assertions.assertThat(updatedBook.getVersion()).isEqualTo(version + 1);
+        Assertions.assertThat(updatedBook.getUpdatedAt()).isEqualTo(updatedAt);
+    }
+
+
+    @Test
+    @DisplayName("Deve alterar a versão da listagem quando um livro for incluído ou excluído")
+    public void listVersionTest() {
+        // cenário
+        Book book = entityManager.persist(this.createNewBook());
+        Book otherBook = entityManager.persist(Book.builder().title("Outras").author("Beltrano").isbn("456").build());
+        entityManager.flush();
+
+        BookListVersion before = SqlStatements.atMost(1, () -> repository.getListVersion());
+
+        // execução
+        entityManager.remove(otherBook);
+        entityManager.flush();
+
+        BookListVersion after = repository.getListVersion();
+
+        // verificação
+        Assertions.assertThat(before.getCount()).isEqualTo(2);
+        Assertions.assertThat(before.getLastId()).isEqualTo(otherBook.getId());
+        Assertions.assertThat(after.getCount()).isEqualTo(1);
+        Assertions.assertThat(after.getLastId()).isEqualTo(book.getId());
+        Assertions.assertThat(after).isNotEqualTo(before);
+    }
+
+
     private Book createNewBook(){
 
         return Book.builder()
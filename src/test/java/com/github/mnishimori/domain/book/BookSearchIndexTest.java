@@ -0,0 +1,75 @@
+package com.github.mnishimori.domain.book;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex();
+        index.index(Book.builder().id(1L).title("As aventuras de Pi").author("Yann Martel").isbn("9788535909555").build());
+        index.index(Book.builder().id(2L).title("Aventuras").author("Fulano").isbn("123").build());
+        index.index(Book.builder().id(3L).title("Dom Casmurro").author("Machado de Assis").isbn("9788594318602").build());
+    }
+
+
+    @Test
+    @DisplayName("Deve buscar ignorando maiúsculas e ordenar pela relevância")
+    public void searchIgnoringCaseAndRankingTest() {
+        // execução
+        List<Long> ids = index.search("AVENTURAS", null, null);
+
+        // verificação
+        Assertions.assertThat(ids).containsExactly(2L, 1L);
+    }
+
+
+    @Test
+    @DisplayName("Deve combinar os filtros de todos os campos informados")
+    public void searchAllFieldsTest() {
+        // execução
+        List<Long> ids = index.search("aventuras", "martel", "9788");
+
+        // verificação
+        Assertions.assertThat(ids).containsExactly(1L);
+    }
+
+
+    @Test
+    @DisplayName("Deve buscar por termos menores que um trigrama")
+    public void searchShortTermTest() {
+        // execução
+        List<Long> ids = index.search(null, null, "12");
+
+        // verificação
+        Assertions.assertThat(ids).containsExactly(2L);
+    }
+
+
+    @Test
+    @DisplayName("Deve reindexar um livro atualizado e removê-lo ao deletar")
+    public void reindexAndRemoveTest() {
+        // cenário
+        index.index(Book.builder().id(2L).title("Memórias Póstumas").author("Machado de Assis").isbn("123").build());
+
+        // execução
+        List<Long> oldTitle = index.search("aventuras", null, null);
+        List<Long> sameAuthor = index.search(null, "machado", null);
+
+        index.remove(3L);
+        List<Long> afterRemove = index.search(null, "machado", null);
+
+        // verificação
+        Assertions.assertThat(oldTitle).containsExactly(1L);
+        Assertions.assertThat(sameAuthor).containsExactly(2L, 3L);
+        Assertions.assertThat(afterRemove).containsExactly(2L);
+        Assertions.assertThat(index.size()).isEqualTo(2);
+    }
+}
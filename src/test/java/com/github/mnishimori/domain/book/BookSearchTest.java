@@ -0,0 +1,76 @@
+package com.github.mnishimori.domain.book;
+
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Filters built like the API builds them, from {@code new Book()}, against the database: a loaned book has to be
+ * found by the query by example as well as by the search index.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookSearchTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    LoanService loanService;
+
+
+    @Test
+    @DisplayName("Deve encontrar os livros emprestados na busca por exemplo")
+    public void findLoanedBookTest() {
+        // cenário
+        String title = UUID.randomUUID().toString();
+        Book loaned = service.save(Book.builder().isbn(UUID.randomUUID().toString()).title(title).author("Fulano").build());
+        service.save(Book.builder().isbn(UUID.randomUUID().toString()).title(title).author("Ciclano").build());
+
+        loanService.save(Loan.builder()
+                .book(loaned)
+                .customer("Fulano")
+                .customerEmail(UUID.randomUUID() + "@email.com")
+                .loanDate(LocalDate.now())
+                .build());
+
+        // execução
+        Page<Book> sorted = service.find(this.filterByTitle(title), PageRequest.of(0, 10, Sort.by("author")), false);
+        Page<Book> exactTotal = service.find(this.filterByTitle(title), PageRequest.of(0, 10), true);
+
+        Book idFilter = new Book();
+        idFilter.setId(loaned.getId());
+        Page<Book> byId = service.find(idFilter, PageRequest.of(0, 10), false);
+
+        Loan loanFilter = new Loan();
+        loanFilter.setBook(new Book());
+        loanFilter.getBook().setId(loaned.getId());
+        Page<Loan> loans = loanService.find(loanFilter, PageRequest.of(0, 10), true);
+
+        // verificação
+        Assertions.assertThat(sorted.getContent()).extracting(Book::getAuthor).containsExactly("Ciclano", "Fulano");
+        Assertions.assertThat(exactTotal.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(byId.getContent()).extracting(Book::getId).containsExactly(loaned.getId());
+        Assertions.assertThat(loans.getContent()).hasSize(1);
+    }
+
+    private Book filterByTitle(String title) {
+        Book filter = new Book();
+        filter.setTitle(title);
+        return filter;
+    }
+}
@@ -5,6 +5,7 @@ import com.github.mnishimori.domain.loan.Loan;
 import com.github.mnishimori.domain.loan.LoanRepository;
 import com.github.mnishimori.domain.loan.LoanService;
 import com.github.mnishimori.domain.loan.LoanServiceImpl;
+import com.github.mnishimori.domain.pagination.PageCountCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,13 +14,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,9 +39,12 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    BookSearchIndex searchIndex;
+
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        this.searchIndex = new BookSearchIndex();
+        this.service = new BookServiceImpl(repository, searchIndex, new PageCountCache(Duration.ofMinutes(1), 100));
     }
 
     @Test
@@ -104,6 +111,24 @@ public class BookServiceTest {
     }
 
 
+    @Test
+    @DisplayName("Deve listar livros a partir do último id informado")
+    public void listAfterTest() {
+        // cenário
+        Book book = this.createBookWithId();
+
+        Mockito
+                .when(repository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)))
+                .thenReturn(Arrays.asList(book));
+
+        // execução
+        List<Book> books = service.listAfter(null, 10);
+
+        // verificação
+        Assertions.assertThat(books).containsExactly(book);
+    }
+
+
     @Test
     @DisplayName("Deve obter um livro por id")
     public void getBookByIdTest() {
@@ -171,6 +196,83 @@ public class BookServiceTest {
 
 
 
+    @Test
+    @DisplayName("Deve filtrar livros sem contar novamente o total de um filtro já consultado")
+    public void findBookWithCachedTotalTest(){
+        // cenário
+        Book book = this.createBook();
+
+        PageRequest firstPage = PageRequest.of(0, 1);
+        PageRequest secondPage = PageRequest.of(1, 1);
+
+        Mockito.when(repository.findContent(Mockito.any(Example.class), Mockito.any(Pageable.class)))
+                .thenReturn(Arrays.asList(book));
+        Mockito.when(repository.count(Mockito.any(Example.class))).thenReturn(5L);
+
+        // execução
+        Page<Book> first = service.find(book, firstPage, false);
+        Page<Book> second = service.find(this.createBook(), secondPage, false);
+
+        // verificação
+        Assertions.assertThat(first.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(second.getTotalElements()).isEqualTo(5);
+        Assertions.assertThat(second.getContent()).containsExactly(book);
+        Mockito.verify(repository, Mockito.times(1)).count(Mockito.any(Example.class));
+        Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+    }
+
+
+    @Test
+    @DisplayName("Deve filtrar livros pelo índice de busca e carregar apenas a página da base")
+    public void findBookInSearchIndexTest(){
+        // cenário
+        Book book = this.createBookWithId();
+        Book otherBook = Book.builder().id(2L).isbn("456").author("Beltrano").title("Outras aventuras").build();
+        Book unrelatedBook = Book.builder().id(3L).isbn("789").author("Ciclano").title("Dom Casmurro").build();
+
+        searchIndex.index(book);
+        searchIndex.index(otherBook);
+        searchIndex.index(unrelatedBook);
+        searchIndex.markReady();
+
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        Mockito.when(repository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(book));
+
+        // execução
+        Page<Book> result = service.find(Book.builder().title("AVENTURAS").build(), pageRequest);
+
+        // verificação
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(result.getContent()).containsExactly(book);
+        Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(1);
+        Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(Pageable.class));
+    }
+
+
+    @Test
+    @DisplayName("Deve atualizar o índice de busca ao salvar e deletar um livro")
+    public void searchIndexFollowsSaveAndDeleteTest(){
+        // cenário
+        Book book = this.createBook();
+        Book savedBook = this.createBookWithId();
+
+        Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+        Mockito.when(repository.save(book)).thenReturn(savedBook);
+
+        // execução
+        service.save(book);
+        List<Long> idsAfterSave = searchIndex.search("aventuras", null, null);
+
+        service.delete(savedBook);
+        List<Long> idsAfterDelete = searchIndex.search("aventuras", null, null);
+
+        // verificação
+        Assertions.assertThat(idsAfterSave).containsExactly(1L);
+        Assertions.assertThat(idsAfterDelete).isEmpty();
+    }
+
+
     @Test
     @DisplayName("Deve obter um livro pelo isbn")
     public void getBookByIsbnTest() {
@@ -194,20 +296,49 @@ public class BookServiceTest {
     public void updateBookTest() {
         // cenário
         long id = 1l;
-        Book updatingBook = Book.builder().id(id).build();
-
         Book book = this.createBook();
         book.setId(id);
-        Mockito.when(repository.save(updatingBook)).thenReturn(book);
+        book.setVersion(2L);
+
+        Mockito.when(repository.updateDetails(
+                Mockito.eq(id), Mockito.eq(2L), Mockito.eq(book.getTitle()), Mockito.eq(book.getAuthor()), Mockito.any()))
+                .thenReturn(1);
 
         // execução
-        Book updatedBook = service.update(updatingBook);
+        Book updatedBook = service.update(book);
 
         // verificação
-        Assertions.assertThat(updatedBook.getId()).isEqualTo(book.getId());
+        Assertions.assertThat(updatedBook.getId()).isEqualTo(id);
         Assertions.assertThat(updatedBook.getTitle()).isEqualTo(book.getTitle());
         Assertions.assertThat(updatedBook.getAuthor()).isEqualTo(book.getAuthor());
         Assertions.assertThat(updatedBook.getIsbn()).isEqualTo(book.getIsbn());
+        Assertions.assertThat(updatedBook.getVersion()).isEqualTo(3L);
+        Assertions.assertThat(updatedBook.getUpdatedAt()).isNotNull();
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Book.class));
+    }
+
+
+    @Test
+    @DisplayName("Deve lançar exceção ao atualizar um livro alterado após a versão informada")
+    public void updateStaleBookTest() {
+        // cenário
+        Book book = this.createBook();
+        book.setId(1L);
+        book.setVersion(2L);
+
+        Mockito.when(repository.updateDetails(
+                Mockito.anyLong(), Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.any()))
+                .thenReturn(0);
+        Mockito.when(repository.existsById(1L)).thenReturn(true);
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> service.update(book));
+
+        // verificação
+        Assertions.assertThat(exception)
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessage("Livro alterado por outra requisição");
+        Assertions.assertThat(book.getVersion()).isEqualTo(2L);
     }
 
 
@@ -222,6 +353,8 @@ public class BookServiceTest {
 
         // verificação
         Mockito.verify(repository, Mockito.never()).save(book);
+        Mockito.verify(repository, Mockito.never())
+                .updateDetails(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
     }
 
 
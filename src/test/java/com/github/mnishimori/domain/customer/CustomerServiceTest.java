@@ -0,0 +1,114 @@
+package com.github.mnishimori.domain.customer;
+
+import com.github.mnishimori.domain.loan.Loan;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(CustomerServiceImpl.class)
+public class CustomerServiceTest {
+
+    @Autowired
+    CustomerService service;
+
+    @Autowired
+    CustomerRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // new customers are committed apart from the test transaction, so every test uses emails of its own
+    String prefix;
+
+    @BeforeEach
+    public void setUp() {
+        prefix = UUID.randomUUID().toString();
+    }
+
+
+    @Test
+    @DisplayName("Deve associar os empréstimos a um cliente por email normalizado, criando os clientes novos")
+    public void assignCustomersTest() {
+        // cenário
+        Customer existing = repository.save(Customer.builder()
+                .email(prefix + "fulano@email.com")
+                .name("Fulano")
+                .build());
+
+        Loan loan = Loan.builder().customer("Fulano").customerEmail(" " + prefix + "Fulano@Email.COM ").build();
+        Loan newCustomerLoan = Loan.builder().customer("Ciclano").customerEmail(prefix + "ciclano@email.com").build();
+        Loan sameNewCustomerLoan = Loan.builder().customer("Ciclano").customerEmail(prefix + "CICLANO@email.com")
+                .build();
+        Loan withoutEmail = Loan.builder().customer("Beltrano").build();
+
+        // execução
+        service.assignCustomers(Arrays.asList(loan, newCustomerLoan, sameNewCustomerLoan, withoutEmail));
+
+        // verificação
+        Assertions.assertThat(loan.getCustomerId()).isEqualTo(existing.getId());
+        Assertions.assertThat(newCustomerLoan.getCustomerId()).isNotNull().isNotEqualTo(existing.getId());
+        Assertions.assertThat(sameNewCustomerLoan.getCustomerId()).isEqualTo(newCustomerLoan.getCustomerId());
+        Assertions.assertThat(withoutEmail.getCustomerId()).isNull();
+        Assertions.assertThat(repository.findByEmailIn(
+                Arrays.asList(prefix + "fulano@email.com", prefix + "ciclano@email.com"))).hasSize(2);
+    }
+
+
+    @Test
+    @DisplayName("Deve usar o cliente registrado por outro empréstimo ao mesmo tempo em vez de falhar")
+    public void assignCustomerRegisteredMeanwhileTest() {
+        // cenário
+        String email = prefix + "fulano@email.com";
+        Loan firstLoan = Loan.builder().customer("Fulano").customerEmail(email).build();
+        service.assignCustomers(Collections.singletonList(firstLoan));
+
+        // the concurrent loan looked the email up before the first one registered it
+        CustomerRepository concurrentRepository = Mockito.mock(CustomerRepository.class,
+                AdditionalAnswers.delegatesTo(repository));
+        Mockito.doReturn(Collections.emptyList()).doAnswer(AdditionalAnswers.delegatesTo(repository))
+                .when(concurrentRepository).findByEmailIn(Mockito.anyCollection());
+        Loan concurrentLoan = Loan.builder().customer("Fulano").customerEmail(email).build();
+
+        // execução
+        new CustomerServiceImpl(concurrentRepository, transactionManager)
+                .assignCustomers(Collections.singletonList(concurrentLoan));
+
+        // verificação
+        // looked up again after its insert failed on the unique email
+        Mockito.verify(concurrentRepository, Mockito.times(2)).findByEmailIn(Mockito.anyCollection());
+        Assertions.assertThat(concurrentLoan.getCustomerId()).isEqualTo(firstLoan.getCustomerId());
+        Assertions.assertThat(repository.findByEmailIn(Collections.singletonList(email))).hasSize(1);
+    }
+
+
+    @Test
+    @DisplayName("Deve obter um cliente pelo email independente de espaços e maiúsculas")
+    public void getByEmailTest() {
+        // cenário
+        service.assignCustomers(Collections.singletonList(
+                Loan.builder().customer("Fulano").customerEmail(prefix + "fulano@email.com").build()));
+
+        // execução / verificação
+        Assertions.assertThat(service.getByEmail("  " + prefix.toUpperCase() + "FULANO@email.com")).isPresent()
+                .get().extracting(Customer::getName).isEqualTo("Fulano");
+        Assertions.assertThat(service.getByEmail(prefix + "outro@email.com")).isEmpty();
+        Assertions.assertThat(service.getByEmail(" ")).isEmpty();
+    }
+}
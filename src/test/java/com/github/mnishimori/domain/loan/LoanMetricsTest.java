@@ -0,0 +1,39 @@
+package com.github.mnishimori.domain.loan;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanMetricsTest {
+
+    @MockBean
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Deve publicar a quantidade de empréstimos em aberto e atrasados")
+    public void loanGaugesTest() {
+        // cenário
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new LoanMetrics(loanService, meterRegistry);
+
+        Mockito.when(loanService.countOpenLoans()).thenReturn(7L);
+        Mockito.when(loanService.countLateLoans()).thenReturn(2L);
+
+        // execução
+        double open = meterRegistry.get(LoanMetrics.OPEN_LOANS_METRIC).gauge().value();
+        double late = meterRegistry.get(LoanMetrics.LATE_LOANS_METRIC).gauge().value();
+
+        // verificação
+        Assertions.assertThat(open).isEqualTo(7);
+        Assertions.assertThat(late).isEqualTo(2);
+    }
+}
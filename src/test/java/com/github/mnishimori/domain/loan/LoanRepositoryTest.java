@@ -1,7 +1,10 @@
 package com.github.mnishimori.domain.loan;
 
 import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.customer.Customer;
+import com.github.mnishimori.support.SqlStatements;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,13 +13,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -42,77 +49,236 @@ public class LoanRepositoryTest {
         loan = this.createLoan();
         loan.setBook(book);
         entityManager.persist(loan);
+        entityManager.flush();
     }
 
     @Test
-    @DisplayName("Deve verificar se existe empréstimo não devolvido para o livro")
-    public void existsByBookAndNotReturned() {
+    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer")
+    public void findByBookIsbnCustomerTest(){
         // cenário
         // configurado no método setUp()
 
         // execução
-        Boolean exists = repository.existsByBookAndNotReturned(book);
+        Page<Loan> result = SqlStatements.atMost(2, () -> repository.findAll(Example.of(loan), PageRequest.of(0, 10)));
 
         // verificação
-        Assertions.assertThat(exists).isTrue();
+        Assertions.assertThat(result.getContent()).hasSize(1);
+        Assertions.assertThat(result.getContent()).contains(loan);
+        Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+        Assertions.assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
 
     @Test
-    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer")
-    public void findByBookIsbnCustomerTest(){
+    @DisplayName("Deve obter empréstimos vencidos não notificados em páginas ordenadas por id")
+    public void findNewlyOverdueAfterPagesTest() {
         // cenário
-        // configurado no método setUp()
+        loan.setDueDate(LocalDate.now().minusDays(1));
+        Loan secondLoan = this.createAndPersistLoan(LocalDate.now().minusDays(6));
+        Loan returnedLoan = this.createAndPersistLoan(LocalDate.now().minusDays(6));
+        returnedLoan.setReturned(true);
+        this.createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+
+        // execução: one statement per page
+        List<Loan> firstPage = SqlStatements.atMost(1, () ->
+                repository.findNewlyOverdueAfter(LocalDate.now(), 0L, PageRequest.of(0, 1)));
+        List<Loan> secondPage = SqlStatements.atMost(1, () ->
+                repository.findNewlyOverdueAfter(LocalDate.now(), loan.getId(), PageRequest.of(0, 1)));
+        List<Loan> lastPage = SqlStatements.atMost(1, () ->
+                repository.findNewlyOverdueAfter(LocalDate.now(), secondLoan.getId(), PageRequest.of(0, 1)));
+
+        // verificação
+        Assertions.assertThat(firstPage).containsExactly(loan);
+        Assertions.assertThat(secondPage).containsExactly(secondLoan);
+        Assertions.assertThat(lastPage).isEmpty();
+    }
+
+
+    @Test
+    @DisplayName("Deve obter apenas os empréstimos vencidos ainda não notificados e marcá-los como notificados")
+    public void findNewlyOverdueAfterTest() {
+        // cenário
+        loan.setDueDate(LocalDate.now().minusDays(1));
+        Loan notifiedLoan = this.createAndPersistLoan(LocalDate.now().minusDays(6));
+        notifiedLoan.setOverdueNotified(true);
+        this.createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
 
         // execução
-        Page<Loan> result = repository.findAll(Example.of(loan), PageRequest.of(0, 10));
+        List<Loan> overdue = SqlStatements.atMost(1, () ->
+                repository.findNewlyOverdueAfter(LocalDate.now(), 0L, PageRequest.of(0, 10)));
+        int updated = SqlStatements.atMost(1, () -> repository.markOverdueNotified(Arrays.asList(loan.getId())));
+        entityManager.clear();
 
         // verificação
-        Assertions.assertThat(result.getContent()).hasSize(1);
-        Assertions.assertThat(result.getContent()).contains(loan);
-        Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
-        Assertions.assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
-        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(overdue).containsExactly(loan);
+        Assertions.assertThat(updated).isEqualTo(1);
+        Assertions.assertThat(repository.findNewlyOverdueAfter(LocalDate.now(), 0L, PageRequest.of(0, 10))).isEmpty();
+        Assertions.assertThat(repository.countLateLoans(LocalDate.now())).isEqualTo(2);
     }
 
 
     @Test
-    @DisplayName("Deve obter empréstimos não retornados em até três dias")
-    public void findByLoanDateLessThanAndNotReturnedTest(){
+    @DisplayName("Deve buscar a página de empréstimos por exemplo sem contar o total")
+    public void findContentTest() {
         // cenário
         // configurado no método setUp()
-        loan.setLoanDate(LocalDate.now().minusDays(5));
-        loan.setReturned(false);
-        entityManager.persist(loan);
+        Loan filter = Loan.builder().customer("fulano").build();
+
+        Example<Loan> example = Example.of(filter, ExampleMatcher
+                .matching()
+                .withIgnoreCase()
+                .withIgnoreNullValues()
+                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
 
         // execução
-        List<Loan> loans = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        List<Loan> loans = SqlStatements.atMost(1, () -> repository.findContent(example, PageRequest.of(0, 10)));
 
         // verificação
         Assertions.assertThat(loans).hasSize(1).contains(loan);
     }
 
+    @Test
+    @DisplayName("Deve carregar a página de empréstimos e seus livros em uma única consulta")
+    public void findContentFetchesBookInOneStatementTest() {
+        // cenário
+        this.persistLoansOfDistinctBooks(3);
+        Example<Loan> example = Example.of(new Loan(), ExampleMatcher.matching().withIgnoreNullValues());
+
+        this.flushAndClear();
+
+        // execução
+        List<String> titles = SqlStatements.atMost(1, () ->
+                repository.findContent(example, PageRequest.of(0, 10), LoanRepository.BOOK)
+                .stream()
+                .map(l -> l.getBook().getTitle())
+                .collect(Collectors.toList()));
+
+        // verificação
+        Assertions.assertThat(titles).hasSize(4);
+    }
+
 
     @Test
-    @DisplayName("Não deve obter empréstimos não retornados em até três dias ")
-    public void notFindByLoanDateLessThanAndNotReturned() {
+    @DisplayName("Deve carregar a página de empréstimos com total usando apenas a consulta da página e a contagem")
+    public void findAllFetchesBookWithPageAndCountStatementsTest() {
         // cenário
-        loan.setLoanDate(LocalDate.now().minusDays(3));
-        loan.setReturned(false);
-        entityManager.persist(loan);
+        this.persistLoansOfDistinctBooks(3);
+        Example<Loan> example = Example.of(new Loan(), ExampleMatcher.matching().withIgnoreNullValues());
+
+        this.flushAndClear();
+
+        // execução
+        Page<Loan> page = SqlStatements.atMost(2, () -> {
+            Page<Loan> loans = repository.findAll(example, PageRequest.of(0, 2));
+            loans.getContent().forEach(l -> l.getBook().getTitle());
+            return loans;
+        });
+
+        // verificação
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote")
+    public void returnAllTest() {
+        // cenário
+        Loan otherLoan = this.createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+
+        // execução
+        int returned = SqlStatements.atMost(1, () ->
+                repository.returnAll(Arrays.asList(loan.getId(), otherLoan.getId())));
+        entityManager.clear();
+
+        // verificação
+        Assertions.assertThat(returned).isEqualTo(2);
+        Assertions.assertThat(repository.findById(loan.getId()).get().getReturned()).isTrue();
+        Assertions.assertThat(repository.findById(otherLoan.getId()).get().getReturned()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve gravar o empréstimo sem status como não devolvido")
+    public void defaultReturnedTest() {
+        // cenário
+        Loan newLoan = this.createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+        entityManager.clear();
+
+        // execução
+        Loan foundLoan = repository.findById(newLoan.getId()).get();
+
+        // verificação
+        Assertions.assertThat(foundLoan.getReturned()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Não deve carregar o livro ao imprimir ou comparar um empréstimo")
+    public void loanDoesNotLoadBookTest() {
+        // cenário
+        this.flushAndClear();
 
         // execução
-        List<Loan> loans = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        long statements = SqlStatements.count();
+        Loan foundLoan = repository.findById(loan.getId()).get();
+        String description = foundLoan.toString();
+        int hash = foundLoan.hashCode();
+        statements = SqlStatements.count() - statements;
+
+        // verificação
+        Assertions.assertThat(description).contains(loan.getCustomer());
+        Assertions.assertThat(hash).isEqualTo(repository.findById(loan.getId()).get().hashCode());
+        Assertions.assertThat(Hibernate.isInitialized(foundLoan.getBook())).isFalse();
+        Assertions.assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve obter os empréstimos de um cliente em páginas ordenadas por id com seus livros")
+    public void findByCustomerAfterTest() {
+        // cenário
+        Customer customer = entityManager.persist(Customer.builder().email("fulano@email.com").name("Fulano").build());
+        Customer otherCustomer = entityManager.persist(Customer.builder().email("ciclano@email.com").build());
+
+        loan.setCustomerId(customer.getId());
+        Loan secondLoan = this.createAndPersistLoan(LocalDate.now());
+        secondLoan.setCustomerId(customer.getId());
+        this.createAndPersistLoan(LocalDate.now()).setCustomerId(otherCustomer.getId());
+
+        this.flushAndClear();
+
+        // execução: one statement per page, books included
+        List<Loan> firstPage = SqlStatements.atMost(1, () ->
+                repository.findByCustomerAfter(customer.getId(), 0L, PageRequest.of(0, 1)));
+        List<Loan> lastPage = SqlStatements.atMost(1, () ->
+                repository.findByCustomerAfter(customer.getId(), loan.getId(), PageRequest.of(0, 10)));
 
         // verificação
-        Assertions.assertThat(loans).isEmpty();
+        Assertions.assertThat(firstPage).extracting(Loan::getId).containsExactly(loan.getId());
+        Assertions.assertThat(lastPage).extracting(Loan::getId).containsExactly(secondLoan.getId());
+        Assertions.assertThat(Hibernate.isInitialized(firstPage.get(0).getBook())).isTrue();
+    }
+
+    private void persistLoansOfDistinctBooks(int quantity) {
+        for (int i = 0; i < quantity; i++) {
+            Book otherBook = Book.builder().isbn("isbn-" + i).author("Autor " + i).title("Título " + i).build();
+            entityManager.persist(otherBook);
+            entityManager.persist(Loan.builder().book(otherBook).customer("Cliente " + i).loanDate(LocalDate.now()).build());
+        }
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
     }
 
     public Loan createAndPersistLoan(LocalDate loanDate){
         Book book = createBook();
+        book.setIsbn(UUID.randomUUID().toString());
         entityManager.persist(book);
 
-        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
+        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).dueDate(loanDate.plusDays(4)).build();
         entityManager.persist(loan);
 
         return loan;
@@ -135,6 +301,7 @@ public class LoanRepositoryTest {
                 .book(book)
                 .customer("Fulano")
                 .loanDate(LocalDate.now())
+                .dueDate(LocalDate.now().plusDays(4))
                 .build();
     }
 
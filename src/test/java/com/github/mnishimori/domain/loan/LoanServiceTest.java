@@ -1,27 +1,36 @@
 package com.github.mnishimori.domain.loan;
 
+import com.github.mnishimori.domain.archive.ArchivedLoan;
+import com.github.mnishimori.domain.archive.ArchivedLoanRepository;
 import com.github.mnishimori.domain.book.Book;
 import com.github.mnishimori.domain.book.BookRepository;
 import com.github.mnishimori.domain.book.BookRepositoryTest;
+import com.github.mnishimori.domain.customer.CustomerService;
 import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.pagination.PageCountCache;
+import com.github.mnishimori.domain.statistics.LoanStatisticsService;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,9 +46,23 @@ public class LoanServiceTest {
     @MockBean
     private BookRepository bookRepository;
 
+    @MockBean
+    private LoanStatisticsService statisticsService;
+
+    @MockBean
+    private CustomerService customerService;
+
+    @MockBean
+    private ArchivedLoanRepository archivedRepository;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository, bookRepository);
+        this.service = new LoanServiceImpl(repository, bookRepository, new PageCountCache(Duration.ofMinutes(1), 100),
+                new LoanProperties(), statisticsService, customerService,
+                archivedRepository, transactionManager);
     }
 
     @Test
@@ -52,8 +75,8 @@ public class LoanServiceTest {
         savedLoan.setId(1L);
 
         Mockito
-                .when(repository.existsByBookAndNotReturned(savingLoan.getBook()))
-                .thenReturn(false);
+                .when(bookRepository.checkout(savingLoan.getBook().getId()))
+                .thenReturn(1);
 
         Mockito
                 .when(repository.save(savingLoan))
@@ -67,6 +90,14 @@ public class LoanServiceTest {
         Assertions.assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         Assertions.assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         Assertions.assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        Assertions.assertThat(savingLoan.getDueDate()).isEqualTo(savingLoan.getLoanDate().plusDays(4));
+        Mockito.verify(statisticsService).loansOpened(Collections.singletonList(1L));
+
+        // the customer is resolved before the transaction that locks the book begins
+        InOrder inOrder = Mockito.inOrder(customerService, transactionManager, bookRepository);
+        inOrder.verify(customerService).assignCustomers(Collections.singletonList(savingLoan));
+        inOrder.verify(transactionManager).getTransaction(Mockito.any());
+        inOrder.verify(bookRepository).checkout(savingLoan.getBook().getId());
     }
 
 
@@ -77,8 +108,8 @@ public class LoanServiceTest {
         Loan savingLoan = this.createLoan();
 
         Mockito
-                .when(repository.existsByBookAndNotReturned(savingLoan.getBook()))
-                .thenReturn(true);
+                .when(bookRepository.checkout(savingLoan.getBook().getId()))
+                .thenReturn(0);
 
         // execução
         Throwable exception = Assertions.catchThrowable(() -> service.save(savingLoan));
@@ -90,35 +121,50 @@ public class LoanServiceTest {
                 .hasMessage("Book already loaned");
 
         Mockito.verify(repository, Mockito.never()).save(savingLoan);
+        Mockito.verify(transactionManager).rollback(Mockito.any());
     }
 
 
     @Test
-    @DisplayName("Deve retornar todos os empréstimos atrasados")
-    public void listAllLoansTest(){
+    @DisplayName("Deve retornar apenas os empréstimos vencidos ainda não notificados")
+    public void getNewlyOverdueLoansTest(){
         // cenário
-        Book book = this.createBook();
-        book.setId(1L);
         Loan loan = this.createLoan();
-        loan.setId(1L);
-        loan.setBook(book);
-        loan.setLoanDate(LocalDate.now().minusDays(4));
+        loan.setId(11L);
+        loan.setDueDate(LocalDate.now().minusDays(1));
+
+        Mockito
+                .when(this.repository.findNewlyOverdueAfter(LocalDate.now(), 0L, PageRequest.of(0, 50)))
+                .thenReturn(Arrays.asList(loan));
+        Mockito
+                .when(this.repository.findNotNotifiedForUpdate(Arrays.asList(11L)))
+                .thenReturn(Arrays.asList(loan));
 
-        List<Loan> loans = new ArrayList<>();
-        loans.add(loan);
+        // execução
+        List<Loan> loans = this.service.getNewlyOverdueLoans(null, 50);
+        this.service.markOverdueNotified(Arrays.asList(11L));
+
+        // verificação
+        Assertions.assertThat(loans).containsExactly(loan);
+        Mockito.verify(this.repository).markOverdueNotified(Arrays.asList(11L));
+        Mockito.verify(this.statisticsService).loansOverdue(Arrays.asList(11L));
+    }
 
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(4);
 
+    @Test
+    @DisplayName("Não deve marcar nem contar como atrasado o empréstimo devolvido antes da notificação")
+    public void markOverdueNotifiedReturnedLoanTest(){
+        // cenário
         Mockito
-                .when(this.repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo))
-                .thenReturn(loans);
+                .when(this.repository.findNotNotifiedForUpdate(Arrays.asList(11L)))
+                .thenReturn(Collections.emptyList());
 
         // execução
-        List<Loan> loansTest = this.service.getAllLateLoans();
+        this.service.markOverdueNotified(Arrays.asList(11L));
 
         // verificação
-        Assertions.assertThat(loansTest.size()).isEqualTo(1);
-        Assertions.assertThat(loansTest.size()).isEqualTo(loans.size());
+        Mockito.verify(this.repository, Mockito.never()).markOverdueNotified(Mockito.anyCollection());
+        Mockito.verify(this.statisticsService, Mockito.never()).loansOverdue(Mockito.anyCollection());
     }
 
 
@@ -173,6 +219,61 @@ public class LoanServiceTest {
         Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos sem consulta de total quando a página não está cheia")
+    public void findLoanWithoutCountTest() {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(1L);
+        List<Loan> loanList = Arrays.asList(loan);
+
+        PageRequest pageRequest = PageRequest.of(0, 10);
+
+        Mockito
+                .when(repository.findContent(Mockito.any(Example.class), Mockito.any(PageRequest.class), Mockito.eq(LoanRepository.BOOK)))
+                .thenReturn(loanList);
+
+        // execução
+        Page<Loan> result = service.find(loan, pageRequest, false);
+
+        // verificação
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(result.getContent()).isEqualTo(loanList);
+        Mockito.verify(repository, Mockito.never()).count(Mockito.any(Example.class));
+        Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+
+    @Test
+    @DisplayName("Deve intercalar por id os empréstimos arquivados de um cliente apenas quando solicitado")
+    public void getLoansByCustomerIncludingArchivedTest() {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(3L);
+        Loan otherLoan = this.createLoan();
+        otherLoan.setId(7L);
+
+        Mockito
+                .when(repository.findByCustomerAfter(Mockito.eq(1L), Mockito.eq(0L), Mockito.any(PageRequest.class)))
+                .thenReturn(Arrays.asList(loan, otherLoan));
+        Mockito
+                .when(archivedRepository.findByCustomerAfter(Mockito.eq(1L), Mockito.eq(0L), Mockito.any(PageRequest.class)))
+                .thenReturn(Arrays.asList(ArchivedLoan.builder().id(1L).build(), ArchivedLoan.builder().id(3L).build()));
+
+        // execução
+        List<Loan> hotLoans = this.service.getLoansByCustomer(1L, null, 3, false);
+        Mockito.verify(archivedRepository, Mockito.never())
+                .findByCustomerAfter(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(PageRequest.class));
+
+        List<Loan> allLoans = this.service.getLoansByCustomer(1L, null, 3, true);
+
+        // verificação
+        Assertions.assertThat(hotLoans).containsExactly(loan, otherLoan);
+        Assertions.assertThat(allLoans).extracting(Loan::getId).containsExactly(1L, 3L, 7L);
+        Assertions.assertThat(allLoans.get(1)).isSameAs(loan);
+    }
+
+
     @Test
     @DisplayName("Deve obter uma coleção de empréstimos de um livro")
     public void getLoansByBookTest() {
@@ -217,10 +318,15 @@ public class LoanServiceTest {
         Long id = 1L;
         Loan loan = this.createLoan();
         loan.setId(id);
+        loan.setVersion(0L);
+        loan.setReturned(false);
 
         Mockito
-                .when(repository.save(loan))
-                .thenReturn(loan);
+                .when(repository.updateReturned(id, false, 0L))
+                .thenReturn(1);
+        Mockito
+                .when(bookRepository.checkout(loan.getBook().getId()))
+                .thenReturn(1);
 
         // execução
         Loan updatedLoan = service.update(loan);
@@ -231,9 +337,211 @@ public class LoanServiceTest {
         Assertions.assertThat(updatedLoan.getCustomer()).isEqualTo(loan.getCustomer());
         Assertions.assertThat(updatedLoan.getLoanDate()).isEqualTo(loan.getLoanDate());
         Assertions.assertThat(updatedLoan.getReturned()).isEqualTo(loan.getReturned());
+        Assertions.assertThat(updatedLoan.getVersion()).isEqualTo(1L);
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Loan.class));
+        Mockito.verify(bookRepository, Mockito.never()).checkin(Mockito.anyLong());
+        Mockito.verify(bookRepository, Mockito.times(1)).checkout(loan.getBook().getId());
+    }
+
+
+    @Test
+    @DisplayName("Não deve emprestar o livro de um empréstimo reaberto")
+    public void reopenedLoanKeepsBookLoanedTest() {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(1L);
+        loan.setVersion(1L);
+        loan.setReturned(false);
+
+        Mockito
+                .when(repository.updateReturned(1L, false, 1L))
+                .thenReturn(1);
+        // the reopened loan claims the book, so the next checkout of it finds it unavailable
+        Mockito
+                .when(bookRepository.checkout(loan.getBook().getId()))
+                .thenReturn(1, 0);
+
+        service.update(loan);
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> service.save(this.createLoan()));
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+        Mockito.verify(bookRepository, Mockito.times(2)).checkout(loan.getBook().getId());
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Loan.class));
     }
 
 
+    @Test
+    @DisplayName("Deve lançar exceção ao reabrir um empréstimo cujo livro está em outro empréstimo")
+    public void reopenLoanOfLoanedBookTest() {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(1L);
+        loan.setVersion(1L);
+        loan.setReturned(false);
+
+        Mockito
+                .when(repository.updateReturned(1L, false, 1L))
+                .thenReturn(1);
+        Mockito
+                .when(bookRepository.checkout(loan.getBook().getId()))
+                .thenReturn(0);
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> service.update(loan));
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+        Mockito.verify(statisticsService, Mockito.never()).loansReopened(Mockito.anyCollection());
+    }
+
+
+    @Test
+    @DisplayName("Deve lançar exceção ao atualizar um empréstimo alterado após a versão informada")
+    public void updateStaleLoanTest() {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(1L);
+        loan.setVersion(0L);
+        loan.setReturned(true);
+
+        Mockito
+                .when(repository.updateReturned(1L, true, 0L))
+                .thenReturn(0);
+        Loan current = this.createLoan();
+        current.setId(1L);
+        current.setVersion(1L);
+
+        Mockito
+                .when(repository.findById(1L))
+                .thenReturn(Optional.of(current));
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> service.update(loan));
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+        Mockito.verify(bookRepository, Mockito.never()).checkin(Mockito.anyLong());
+    }
+
+
+    @Test
+    @DisplayName("Deve liberar o livro ao devolver um empréstimo")
+    public void returnLoanReleasesBookTest() {
+        // cenário
+        Loan loan = this.createLoan();
+        loan.setId(1L);
+        loan.setReturned(true);
+        loan.setVersion(0L);
+
+        Mockito
+                .when(repository.updateReturned(1L, true, 0L))
+                .thenReturn(1);
+
+        // execução
+        service.update(loan);
+
+        // verificação
+        Mockito.verify(bookRepository, Mockito.times(1)).checkin(loan.getBook().getId());
+        Mockito.verify(statisticsService, Mockito.times(1)).loansReturned(Collections.singletonList(1L));
+    }
+
+
+    @Test
+    @DisplayName("Deve realizar empréstimos em lote informando o resultado de cada item")
+    @SuppressWarnings("unchecked")
+    public void checkoutAllTest() {
+        // cenário
+        Book available = Book.builder().id(1L).isbn("001").available(true).build();
+        Book loaned = Book.builder().id(2L).isbn("002").available(false).build();
+
+        List<Loan> loans = Arrays.asList(
+                this.createLoanOf("001"),
+                this.createLoanOf("002"),
+                this.createLoanOf("003"),
+                this.createLoanOf("001"));
+
+        Mockito
+                .when(bookRepository.findAllByIsbnForUpdate(Mockito.anyCollection()))
+                .thenReturn(Arrays.asList(available, loaned));
+
+        Mockito
+                .when(repository.saveAll(Mockito.anyList()))
+                .thenAnswer(invocation -> {
+                    List<Loan> saving = invocation.getArgument(0);
+                    saving.forEach(l -> l.setId(10L));
+                    return saving;
+                });
+
+        // execução
+        List<LoanOutcome> outcomes = service.checkoutAll(loans);
+
+        // verificação
+        Assertions.assertThat(outcomes)
+                .extracting(LoanOutcome::getIsbn, LoanOutcome::isSuccess, LoanOutcome::getError, LoanOutcome::getLoanId)
+                .containsExactly(
+                        Assertions.tuple("001", true, null, 10L),
+                        Assertions.tuple("002", false, "Book already loaned", null),
+                        Assertions.tuple("003", false, "Book not found for passed isbn", null),
+                        Assertions.tuple("001", false, "Book already loaned", null));
+
+        Mockito.verify(bookRepository, Mockito.times(1)).findAllByIsbnForUpdate(Mockito.anyCollection());
+        Mockito.verify(bookRepository, Mockito.times(1)).checkoutAll(Collections.singleton(1L));
+        Mockito.verify(repository, Mockito.times(1)).saveAll(Collections.singletonList(loans.get(0)));
+        Mockito.verify(bookRepository, Mockito.never()).checkout(Mockito.anyLong());
+
+        InOrder inOrder = Mockito.inOrder(customerService, transactionManager, bookRepository);
+        inOrder.verify(customerService).assignCustomers(loans);
+        inOrder.verify(transactionManager).getTransaction(Mockito.any());
+        inOrder.verify(bookRepository).findAllByIsbnForUpdate(Mockito.anyCollection());
+    }
+
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote informando o resultado de cada item")
+    public void returnAllTest() {
+        // cenário
+        Loan open = this.createLoan();
+        open.setId(1L);
+
+        Loan returned = this.createLoan();
+        returned.setId(2L);
+        returned.setReturned(true);
+
+        Mockito
+                .when(repository.findAllByIdForUpdate(Mockito.anyCollection()))
+                .thenReturn(Arrays.asList(open, returned));
+
+        // execução
+        List<LoanOutcome> outcomes = service.returnAll(Arrays.asList(1L, 2L, 3L, 1L));
+
+        // verificação
+        Assertions.assertThat(outcomes)
+                .extracting(LoanOutcome::getLoanId, LoanOutcome::isSuccess, LoanOutcome::getError)
+                .containsExactly(
+                        Assertions.tuple(1L, true, null),
+                        Assertions.tuple(2L, false, "Loan already returned"),
+                        Assertions.tuple(3L, false, "Loan not found"),
+                        Assertions.tuple(1L, false, "Loan already returned"));
+
+        Mockito.verify(repository, Mockito.times(1)).returnAll(Collections.singleton(1L));
+        Mockito.verify(statisticsService, Mockito.times(1)).loansReturned(Collections.singleton(1L));
+        Mockito.verify(bookRepository, Mockito.times(1)).checkinAll(Collections.singleton(open.getBook().getId()));
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(Loan.class));
+    }
+
+
+    private Loan createLoanOf(String isbn) {
+        return Loan
+                .builder()
+                .book(Book.builder().isbn(isbn).build())
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .build();
+    }
+
     private Loan createLoan(){
         return Loan
                 .builder()
@@ -0,0 +1,238 @@
+package com.github.mnishimori.domain.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.mail.Message;
+import javax.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(EmailOutboxServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    EmailOutboxService outboxService;
+
+    @Autowired
+    EmailOutboxRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MeterRegistry meterRegistry;
+
+    EmailOutboxProperties properties;
+
+    EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        properties = new EmailOutboxProperties();
+        properties.setBatchSize(2);
+        properties.setWorkers(2);
+        properties.setMaxAttempts(2);
+        properties.setBackoff(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        repository.deleteAll();
+    }
+
+
+    @Test
+    @DisplayName("Deve enviar os emails pendentes da caixa de saída uma única vez")
+    public void dispatchPendingMailsTest() {
+        // cenário
+        dispatcher = this.createDispatcher(this.greenMailService());
+        this.enqueue("late-loan:1", "fulano@email.com", "late-loan:2", "beltrano@email.com", "late-loan:3", "ciclano@email.com");
+
+        // execução
+        int handled = dispatcher.dispatch();
+        int handledAgain = dispatcher.dispatch();
+
+        // verificação
+        List<String> recipients = Arrays.stream(greenMail.getReceivedMessages())
+                .map(this::singleRecipient)
+                .sorted()
+                .collect(Collectors.toList());
+
+        Assertions.assertThat(handled).isEqualTo(3);
+        Assertions.assertThat(handledAgain).isZero();
+        Assertions.assertThat(recipients).containsExactly("beltrano@email.com", "ciclano@email.com", "fulano@email.com");
+        Assertions.assertThat(repository.findAll())
+                .allSatisfy(message -> {
+                    Assertions.assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+                    Assertions.assertThat(message.getSentAt()).isNotNull();
+                    Assertions.assertThat(message.getClaimToken()).isNull();
+                });
+        Assertions.assertThat(meterRegistry.counter(EmailOutboxDispatcher.MESSAGES_METRIC, "result", "sent").count()).isEqualTo(3);
+    }
+
+
+    @Test
+    @DisplayName("Deve reagendar com espera exponencial os emails que falharam até desistir")
+    public void rescheduleFailedMailsTest() {
+        // cenário
+        EmailService emailService = Mockito.mock(EmailService.class);
+        dispatcher = this.createDispatcher(emailService);
+        this.enqueue("late-loan:1", "fulano@email.com", "late-loan:2", "beltrano@email.com");
+
+        Mockito.when(emailService.send(Mockito.anyList())).thenAnswer(invocation -> {
+            List<EmailOutbox> messages = invocation.getArgument(0);
+            return messages.stream()
+                    .filter(message -> message.getRecipient().equals("beltrano@email.com"))
+                    .collect(Collectors.toMap(EmailOutbox::getId, message -> "Mailbox unavailable"));
+        });
+
+        // execução
+        LocalDateTime start = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        // verificação
+        EmailOutbox failed = this.findByKey("late-loan:2");
+        Assertions.assertThat(this.findByKey("late-loan:1").getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+        Assertions.assertThat(failed.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        Assertions.assertThat(failed.getAttempts()).isEqualTo(1);
+        Assertions.assertThat(failed.getLastError()).isEqualTo("Mailbox unavailable");
+        Assertions.assertThat(failed.getNextAttemptAt()).isAfterOrEqualTo(start.plusMinutes(1));
+        Assertions.assertThat(dispatcher.dispatch()).isZero();
+
+        // a espera terminou
+        failed.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        repository.save(failed);
+        dispatcher.dispatch();
+
+        failed = this.findByKey("late-loan:2");
+        Assertions.assertThat(failed.getStatus()).isEqualTo(EmailOutboxStatus.FAILED);
+        Assertions.assertThat(failed.getAttempts()).isEqualTo(2);
+        Mockito.verify(emailService, Mockito.times(2)).send(Mockito.anyList());
+        Assertions.assertThat(meterRegistry.counter(EmailOutboxDispatcher.MESSAGES_METRIC, "result", "retried").count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.counter(EmailOutboxDispatcher.MESSAGES_METRIC, "result", "failed").count()).isEqualTo(1);
+    }
+
+
+    @Test
+    @DisplayName("Deve reenviar os emails presos em envio por um despachante interrompido")
+    public void releaseStaleClaimsTest() {
+        // cenário
+        dispatcher = this.createDispatcher(this.greenMailService());
+        this.enqueue("late-loan:1", "fulano@email.com");
+
+        EmailOutbox claimed = this.findByKey("late-loan:1");
+        claimed.setStatus(EmailOutboxStatus.SENDING);
+        claimed.setClaimToken("despachante-interrompido");
+        claimed.setClaimedAt(LocalDateTime.now().minus(properties.getClaimTimeout()).minusMinutes(1));
+        repository.save(claimed);
+
+        // execução
+        int handled = dispatcher.dispatch();
+
+        // verificação
+        Assertions.assertThat(handled).isEqualTo(1);
+        Assertions.assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        Assertions.assertThat(this.findByKey("late-loan:1").getStatus()).isEqualTo(EmailOutboxStatus.SENT);
+    }
+
+
+    @Test
+    @DisplayName("Deve enfileirar uma única vez cada chave de idempotência")
+    public void enqueueOncePerKeyTest() {
+        // cenário
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // execução
+        Boolean first = transactionTemplate.execute(status -> outboxService.enqueue("late-loan:1", "fulano@email.com", "Assunto", "Mensagem"));
+        Boolean second = transactionTemplate.execute(status -> outboxService.enqueue("late-loan:1", "fulano@email.com", "Assunto", "Mensagem"));
+
+        // verificação
+        Assertions.assertThat(first).isTrue();
+        Assertions.assertThat(second).isFalse();
+        Assertions.assertThat(repository.count()).isEqualTo(1);
+    }
+
+
+    @Test
+    @DisplayName("Deve exigir a transação da alteração de estado ao enfileirar um email")
+    public void enqueueRequiresTransactionTest() {
+        // execução
+        Throwable exception = Assertions.catchThrowable(
+                () -> outboxService.enqueue("late-loan:1", "fulano@email.com", "Assunto", "Mensagem"));
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(IllegalTransactionStateException.class);
+        Assertions.assertThat(repository.count()).isZero();
+    }
+
+    private EmailOutboxDispatcher createDispatcher(EmailService emailService) {
+        return new EmailOutboxDispatcher(repository, emailService, properties, transactionManager, meterRegistry);
+    }
+
+    private EmailService greenMailService() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        return new EmailServiceImpl(mailSender);
+    }
+
+    private void enqueue(String... keysAndRecipients) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < keysAndRecipients.length; i += 2) {
+                outboxService.enqueue(keysAndRecipients[i], keysAndRecipients[i + 1], "Livro com empréstimo atrasado", "Mensagem");
+            }
+        });
+    }
+
+    private EmailOutbox findByKey(String key) {
+        return repository.findAll().stream()
+                .filter(message -> message.getIdempotencyKey().equals(key))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    private String singleRecipient(MimeMessage message) {
+        try {
+            Assertions.assertThat(message.getRecipients(Message.RecipientType.TO)).hasSize(1);
+            return message.getRecipients(Message.RecipientType.TO)[0].toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
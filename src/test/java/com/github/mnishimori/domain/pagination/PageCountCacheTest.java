@@ -0,0 +1,47 @@
+package com.github.mnishimori.domain.pagination;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PageCountCacheTest {
+
+
+    @Test
+    @DisplayName("Deve reaproveitar o total para o mesmo filtro normalizado")
+    public void reuseCountForSameFilterTest() {
+        // cenário
+        PageCountCache cache = new PageCountCache(Duration.ofMinutes(1), 10);
+        AtomicInteger counts = new AtomicInteger();
+
+        // execução
+        long first = cache.count(PageCountCache.key("book", "Aventuras", null), () -> counts.incrementAndGet() * 10L);
+        long second = cache.count(PageCountCache.key("book", "AVENTURAS", null), () -> counts.incrementAndGet() * 10L);
+        long other = cache.count(PageCountCache.key("book", null, "aventuras"), () -> counts.incrementAndGet() * 10L);
+
+        // verificação
+        Assertions.assertThat(first).isEqualTo(10L);
+        Assertions.assertThat(second).isEqualTo(10L);
+        Assertions.assertThat(other).isEqualTo(20L);
+        Assertions.assertThat(counts.get()).isEqualTo(2);
+    }
+
+
+    @Test
+    @DisplayName("Deve contar novamente quando o total expirou")
+    public void recountAfterTtlTest() {
+        // cenário
+        PageCountCache cache = new PageCountCache(Duration.ZERO, 10);
+        AtomicInteger counts = new AtomicInteger();
+
+        // execução
+        cache.count("loan|fulano", counts::incrementAndGet);
+        long total = cache.count("loan|fulano", counts::incrementAndGet);
+
+        // verificação
+        Assertions.assertThat(total).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.mnishimori.domain.reactive;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.exception.BusinessException;
+import com.github.mnishimori.domain.exception.BusinessRejection;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class ReactiveBookRepositoryTest {
+
+    @Autowired
+    ReactiveBookRepository reactiveRepository;
+
+    @Autowired
+    BookRepository repository;
+
+
+    @Test
+    @DisplayName("Deve ler pelo R2DBC os livros gravados pelo JPA")
+    public void findByIdTest() {
+        // cenário
+        Book book = repository.save(this.createBook("As aventuras", UUID.randomUUID().toString()));
+
+        // execução
+        Book found = reactiveRepository.findById(book.getId()).block();
+
+        // verificação
+        Assertions.assertThat(found).isNotNull();
+        Assertions.assertThat(found.getIsbn()).isEqualTo(book.getIsbn());
+        Assertions.assertThat(found.getAvailable()).isTrue();
+        Assertions.assertThat(reactiveRepository.findById(Long.MAX_VALUE).block()).isNull();
+    }
+
+
+    @Test
+    @DisplayName("Deve filtrar, ordenar e paginar livros como a busca por exemplo")
+    public void findTest() {
+        // cenário
+        String author = "Autor " + UUID.randomUUID();
+        repository.saveAll(Arrays.asList(
+                this.createBook("B 100% aventura", UUID.randomUUID().toString(), author),
+                this.createBook("A 100% aventura", UUID.randomUUID().toString(), author),
+                this.createBook("C 100 aventuras", UUID.randomUUID().toString(), author)));
+
+        Book filter = Book.builder().author(author.toUpperCase()).title("100%").build();
+
+        // execução
+        List<String> titles = reactiveRepository.find(filter, PageRequest.of(0, 10, Sort.by("title")))
+                .map(Book::getTitle)
+                .collectList()
+                .block();
+        List<Book> secondPage = reactiveRepository.find(filter, PageRequest.of(1, 1, Sort.by("title"))).collectList().block();
+        Long total = reactiveRepository.count(filter).block();
+
+        // verificação
+        Assertions.assertThat(titles).containsExactly("A 100% aventura", "B 100% aventura");
+        Assertions.assertThat(secondPage).extracting(Book::getTitle).containsExactly("B 100% aventura");
+        Assertions.assertThat(total).isEqualTo(2);
+    }
+
+
+    @Test
+    @DisplayName("Não deve ordenar por uma coluna não permitida")
+    public void invalidSortTest() {
+        // execução
+        Throwable exception = Assertions.catchThrowable(
+                () -> reactiveRepository.find(new Book(), PageRequest.of(0, 10, Sort.by("available; drop table book"))).blockLast());
+
+        // verificação
+        // the message is fixed: it reaches clients and logs, and must not echo the requested property
+        Assertions.assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Ordenação não suportada");
+        Assertions.assertThat(((BusinessException) exception).getRejection()).isEqualTo(BusinessRejection.UNSUPPORTED_SORT);
+    }
+
+    private Book createBook(String title, String isbn) {
+        return this.createBook(title, isbn, "Fulano");
+    }
+
+    private Book createBook(String title, String isbn, String author) {
+        return Book.builder().title(title).author(author).isbn(isbn).build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.mnishimori.domain.reactive;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class ReactiveLoanRepositoryTest {
+
+    @Autowired
+    ReactiveLoanRepository reactiveRepository;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos pelo cliente e pelo livro")
+    public void findTest() {
+        // cenário
+        String customer = "Cliente " + UUID.randomUUID();
+        Book book = bookRepository.save(Book.builder().title("As aventuras").author("Fulano").isbn(UUID.randomUUID().toString()).build());
+        Book otherBook = bookRepository.save(Book.builder().title("Outras histórias").author("Fulano").isbn(UUID.randomUUID().toString()).build());
+
+        Loan loan = repository.save(this.createLoan(customer, book));
+        repository.save(this.createLoan(customer, otherBook));
+
+        Loan filter = Loan.builder()
+                .customer(customer.toLowerCase())
+                .book(Book.builder().title("aventuras").build())
+                .build();
+
+        // execução
+        List<Loan> loans = reactiveRepository.find(filter, PageRequest.of(0, 10)).collectList().block();
+        Long total = reactiveRepository.count(filter).block();
+
+        // verificação
+        Assertions.assertThat(loans).hasSize(1);
+        Assertions.assertThat(loans.get(0).getId()).isEqualTo(loan.getId());
+        Assertions.assertThat(loans.get(0).getDueDate()).isEqualTo(loan.getLoanDate().plusDays(4));
+        Assertions.assertThat(loans.get(0).getReturned()).isFalse();
+        Assertions.assertThat(loans.get(0).getBook().getIsbn()).isEqualTo(book.getIsbn());
+        Assertions.assertThat(total).isEqualTo(1);
+    }
+
+    private Loan createLoan(String customer, Book book) {
+        return Loan.builder()
+                .customer(customer)
+                .customerEmail("cliente@email.com")
+                .book(book)
+                .loanDate(LocalDate.now())
+                .dueDate(LocalDate.now().plusDays(4))
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.mnishimori.domain.schedule;
+
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanService;
+import com.github.mnishimori.domain.mail.EmailOutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailOutboxService outboxService;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    MeterRegistry meterRegistry;
+
+    ScheduleService service;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        LateLoanNotificationProperties properties = new LateLoanNotificationProperties();
+        properties.setPageSize(2);
+
+        service = new ScheduleService(loanService, outboxService, properties, transactionManager, meterRegistry);
+    }
+
+
+    @Test
+    @DisplayName("Deve enfileirar um email por cliente com empréstimo atrasado")
+    public void queueOneMailPerCustomerTest() {
+        // cenário
+        Mockito.when(loanService.getNewlyOverdueLoans(0L, 2))
+                .thenReturn(Arrays.asList(this.lateLoan(1L, "fulano@email.com"), this.lateLoan(2L, "beltrano@email.com")));
+        Mockito.when(loanService.getNewlyOverdueLoans(2L, 2))
+                .thenReturn(Arrays.asList(this.lateLoan(3L, "FULANO@email.com"), this.lateLoan(4L, "ciclano@email.com ")));
+        Mockito.when(loanService.getNewlyOverdueLoans(4L, 2))
+                .thenReturn(Collections.singletonList(this.lateLoan(5L, null)));
+        Mockito.when(outboxService.enqueue(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(true);
+
+        // execução
+        service.sendMailToLateLoans();
+
+        // verificação
+        Mockito.verify(outboxService).enqueue(Mockito.eq("late-loan:1"), Mockito.eq("fulano@email.com"), Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(outboxService).enqueue(Mockito.eq("late-loan:2"), Mockito.eq("beltrano@email.com"), Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(outboxService).enqueue(Mockito.eq("late-loan:4"), Mockito.eq("ciclano@email.com"), Mockito.anyString(), Mockito.anyString());
+        Mockito.verifyNoMoreInteractions(outboxService);
+
+        Mockito.verify(loanService).markOverdueNotified(Arrays.asList(1L, 2L));
+        Mockito.verify(loanService).markOverdueNotified(Arrays.asList(3L, 4L));
+        Mockito.verify(loanService).markOverdueNotified(Collections.singletonList(5L));
+        Mockito.verify(loanService, Mockito.never()).getNewlyOverdueLoans(5L, 2);
+        Mockito.verify(transactionManager, Mockito.times(3)).commit(Mockito.any());
+
+        Assertions.assertThat(meterRegistry.counter("library.notifications.late-loans.emails", "result", "queued").count()).isEqualTo(3);
+    }
+
+
+    @Test
+    @DisplayName("Não deve marcar os empréstimos como notificados quando o email não for enfileirado")
+    public void rollbackPageWhenQueueFailsTest() {
+        // cenário
+        Mockito.when(loanService.getNewlyOverdueLoans(0L, 2))
+                .thenReturn(Collections.singletonList(this.lateLoan(1L, "fulano@email.com")));
+        Mockito.when(outboxService.enqueue(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString()))
+                .thenThrow(new IllegalStateException("outbox indisponível"));
+
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> service.sendMailToLateLoans());
+
+        // verificação
+        Assertions.assertThat(exception).isInstanceOf(IllegalStateException.class);
+        Mockito.verify(loanService, Mockito.never()).markOverdueNotified(Mockito.anyCollection());
+        Mockito.verify(transactionManager).rollback(Mockito.any());
+        Mockito.verify(transactionManager, Mockito.never()).commit(Mockito.any());
+    }
+
+    private Loan lateLoan(Long id, String email) {
+        return Loan.builder()
+                .id(id)
+                .customer("Cliente " + id)
+                .customerEmail(email)
+                .loanDate(LocalDate.now().minusDays(5))
+                .dueDate(LocalDate.now().minusDays(1))
+                .build();
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.mnishimori.domain.statistics;
+
+import com.github.mnishimori.domain.archive.ArchivedLoanRepository;
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import com.github.mnishimori.domain.customer.CustomerService;
+import com.github.mnishimori.domain.customer.CustomerServiceImpl;
+import com.github.mnishimori.domain.loan.Loan;
+import com.github.mnishimori.domain.loan.LoanProperties;
+import com.github.mnishimori.domain.loan.LoanRepository;
+import com.github.mnishimori.domain.loan.LoanService;
+import com.github.mnishimori.domain.loan.LoanServiceImpl;
+import com.github.mnishimori.domain.pagination.PageCountCache;
+import com.github.mnishimori.support.SqlStatements;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({LoanStatisticsServiceImpl.class, CustomerServiceImpl.class})
+public class LoanStatisticsServiceTest {
+
+    @Autowired
+    LoanStatisticsService statisticsService;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    CustomerService customerService;
+
+    @Autowired
+    ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    LoanService loanService;
+
+    @BeforeEach
+    public void setUp() {
+        loanService = new LoanServiceImpl(loanRepository, bookRepository, new PageCountCache(Duration.ofMinutes(1), 100),
+                new LoanProperties(), statisticsService, customerService,
+                archivedLoanRepository, transactionManager);
+    }
+
+
+    @Test
+    @DisplayName("Deve contar os empréstimos, devoluções e atrasos por livro e por cliente")
+    public void countersTest() {
+        // cenário
+        Book book = this.persistBook("001");
+        Book otherBook = this.persistBook("002");
+
+        LocalDate lastLoanDate = LocalDate.now().minusDays(1);
+        Loan returnedLoan = loanService.save(this.createLoan(book, LocalDate.now().minusDays(20)));
+        loanService.returnAll(Collections.singletonList(returnedLoan.getId()));
+
+        Loan lateLoan = loanService.save(this.createLoan(book, LocalDate.now().minusDays(10)));
+        loanService.save(this.createLoan(otherBook, lastLoanDate));
+
+        // execução
+        loanService.markOverdueNotified(Arrays.asList(lateLoan.getId(), returnedLoan.getId()));
+
+        // verificação
+        LoanCounters bookCounters = statisticsService.getByBook(book.getId());
+        Assertions.assertThat(bookCounters.getTotalLoans()).isEqualTo(2);
+        Assertions.assertThat(bookCounters.getOpenLoans()).isEqualTo(1);
+        Assertions.assertThat(bookCounters.getOverdueLoans()).isEqualTo(1);
+        Assertions.assertThat(bookCounters.getLastLoanDate()).isEqualTo(LocalDate.now().minusDays(10));
+
+        LoanCounters customerCounters = statisticsService.getByCustomer(this.customerId("fulano@email.com"));
+        Assertions.assertThat(customerCounters.getTotalLoans()).isEqualTo(3);
+        Assertions.assertThat(customerCounters.getOpenLoans()).isEqualTo(2);
+        Assertions.assertThat(customerCounters.getOverdueLoans()).isEqualTo(1);
+        Assertions.assertThat(customerCounters.getLastLoanDate()).isEqualTo(lastLoanDate);
+    }
+
+
+    @Test
+    @DisplayName("Deve descontar o atraso ao devolver um empréstimo atrasado apenas uma vez")
+    public void returnLateLoanTest() {
+        // cenário
+        Book book = this.persistBook("001");
+        Loan loan = loanService.save(this.createLoan(book, LocalDate.now().minusDays(10)));
+        loanService.markOverdueNotified(Collections.singletonList(loan.getId()));
+
+        // as read by the controller, outside the persistence context of the update
+        Loan loaded = loanRepository.findById(loan.getId()).get();
+        entityManager.detach(loaded);
+
+        // execução
+        loaded.setReturned(true);
+        Loan returned = loanService.update(loaded);
+
+        Loan returnedAgain = Loan.builder()
+                .id(returned.getId())
+                .book(book)
+                .version(returned.getVersion())
+                .returned(true)
+                .build();
+        loanService.update(returnedAgain);
+
+        // verificação
+        LoanCounters counters = statisticsService.getByBook(book.getId());
+        Assertions.assertThat(counters.getTotalLoans()).isEqualTo(1);
+        Assertions.assertThat(counters.getOpenLoans()).isZero();
+        Assertions.assertThat(counters.getOverdueLoans()).isZero();
+        Assertions.assertThat(statisticsService.getByCustomer(this.customerId("fulano@email.com")).getOpenLoans()).isZero();
+    }
+
+
+    @Test
+    @DisplayName("Deve contar os empréstimos feitos em lote")
+    public void checkoutAllTest() {
+        // cenário
+        this.persistBook("001");
+        Book otherBook = this.persistBook("002");
+        this.persistBook("003");
+
+        // execução
+        List<Loan> loans = Arrays.asList(
+                this.createLoan(Book.builder().isbn("001").build(), LocalDate.now()),
+                this.createLoan(Book.builder().isbn("002").build(), LocalDate.now()),
+                Loan.builder().book(Book.builder().isbn("003").build()).customer("Ciclano").customerEmail("ciclano@email.com")
+                        .loanDate(LocalDate.now()).build());
+
+        // books locked, customers looked up and inserted, books claimed, loans inserted, counters of books and customers
+        // merged, plus a call to each sequence when its block of ids runs out
+        SqlStatements.atMost(9, () -> loanService.checkoutAll(loans));
+
+        // verificação
+        Assertions.assertThat(statisticsService.getByCustomer(this.customerId("fulano@email.com")).getTotalLoans()).isEqualTo(2);
+        Assertions.assertThat(statisticsService.getByCustomer(this.customerId("ciclano@email.com")).getTotalLoans()).isEqualTo(1);
+        Assertions.assertThat(statisticsService.getByBook(otherBook.getId()).getOpenLoans()).isEqualTo(1);
+    }
+
+
+    @Test
+    @DisplayName("Deve devolver um lote de empréstimos com um número fixo de comandos")
+    public void returnAllTest() {
+        // cenário
+        Book book = this.persistBook("001");
+        Book otherBook = this.persistBook("002");
+        List<Long> loanIds = Arrays.asList(
+                loanService.save(this.createLoan(book, LocalDate.now())).getId(),
+                loanService.save(this.createLoan(otherBook, LocalDate.now())).getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        // execução: loans locked and returned, books released, counters of books and customers updated
+        SqlStatements.atMost(5, () -> loanService.returnAll(loanIds));
+
+        // verificação
+        Assertions.assertThat(statisticsService.getByBook(book.getId()).getOpenLoans()).isZero();
+        Assertions.assertThat(statisticsService.getByCustomer(this.customerId("fulano@email.com")).getOpenLoans()).isZero();
+    }
+
+
+    @Test
+    @DisplayName("Deve contar separadamente os empréstimos de clientes com o mesmo nome")
+    public void customersWithSameNameTest() {
+        // cenário
+        Book book = this.persistBook("001");
+        Book otherBook = this.persistBook("002");
+
+        // execução
+        loanService.save(this.createLoan(book, LocalDate.now()));
+        loanService.save(Loan.builder().book(otherBook).customer("Fulano").customerEmail("outro.fulano@email.com")
+                .loanDate(LocalDate.now()).build());
+
+        // verificação
+        Assertions.assertThat(statisticsService.getByCustomer(this.customerId("fulano@email.com")).getTotalLoans()).isEqualTo(1);
+        Assertions.assertThat(statisticsService.getByCustomer(this.customerId("outro.fulano@email.com")).getTotalLoans()).isEqualTo(1);
+    }
+
+
+    private Long customerId(String email) {
+        return customerService.getByEmail(email).get().getId();
+    }
+
+    private Book persistBook(String isbn) {
+        return entityManager.persistAndFlush(Book.builder().isbn(isbn).title("Aventuras").author("Fulano").build());
+    }
+
+    private Loan createLoan(Book book, LocalDate loanDate) {
+        return Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(loanDate)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.mnishimori.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test method that runs more SQL statements than {@code value}. @BeforeEach methods are not counted, so the
+ * scenario is best built there. On a class, it applies to every test method without a budget of its own.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    long value();
+}
@@ -0,0 +1,34 @@
+package com.github.mnishimori.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Optional;
+
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementBudgetExtension.class);
+
+    private static final String BEFORE = "before";
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(BEFORE, SqlStatements.count());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        long before = context.getStore(NAMESPACE).remove(BEFORE, Long.class);
+        long statements = SqlStatements.count() - before;
+
+        this.budget(context).ifPresent(budget -> SqlStatements.check(budget.value(), statements));
+    }
+
+    private Optional<SqlStatementBudget> budget(ExtensionContext context) {
+        Optional<SqlStatementBudget> budget = AnnotationSupport.findAnnotation(context.getTestMethod(), SqlStatementBudget.class);
+
+        return budget.isPresent() ? budget : AnnotationSupport.findAnnotation(context.getTestClass(), SqlStatementBudget.class);
+    }
+}
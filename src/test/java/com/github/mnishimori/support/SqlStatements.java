@@ -0,0 +1,48 @@
+package com.github.mnishimori.support;
+
+import com.github.mnishimori.config.SqlStatementCounter;
+
+import java.util.function.Supplier;
+
+/**
+ * Upper bounds on the SQL statements of a piece of work, counted on the current thread by {@link SqlStatementCounter}.
+ * A budget fails the test when a change adds an N+1, a count query or a per-row statement to a path that should run a
+ * fixed number of them. MockMvc requests run on the test thread, so they can be measured too.
+ */
+public final class SqlStatements {
+
+    private static final SqlStatementCounter COUNTER = new SqlStatementCounter();
+
+    private SqlStatements() {
+    }
+
+    public static long count() {
+        return COUNTER.count();
+    }
+
+    public static long count(Runnable work) {
+        long before = COUNTER.count();
+        work.run();
+        return COUNTER.count() - before;
+    }
+
+    public static void atMost(long budget, Runnable work) {
+        atMost(budget, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T atMost(long budget, Supplier<T> work) {
+        long before = COUNTER.count();
+        T result = work.get();
+        check(budget, COUNTER.count() - before);
+        return result;
+    }
+
+    static void check(long budget, long statements) {
+        if (statements > budget) {
+            throw new AssertionError("Expected at most " + budget + " SQL statements, but " + statements + " ran");
+        }
+    }
+}
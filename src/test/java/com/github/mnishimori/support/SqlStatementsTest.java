@@ -0,0 +1,58 @@
+package com.github.mnishimori.support;
+
+import com.github.mnishimori.domain.book.Book;
+import com.github.mnishimori.domain.book.BookRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class SqlStatementsTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Test
+    @DisplayName("Deve contar os comandos SQL também nos testes de repositório")
+    public void countTest() {
+        // execução
+        long statements = SqlStatements.count(() -> repository.existsByIsbn("123"));
+
+        // verificação
+        Assertions.assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve retornar o resultado quando o orçamento de comandos é respeitado")
+    public void atMostTest() {
+        // execução
+        Optional<Book> book = SqlStatements.atMost(1, () -> repository.findById(Long.MAX_VALUE));
+
+        // verificação
+        Assertions.assertThat(book).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve falhar quando o orçamento de comandos é excedido")
+    public void atMostExceededTest() {
+        // execução
+        Throwable exception = Assertions.catchThrowable(() -> SqlStatements.atMost(1, () -> {
+            repository.existsByIsbn("123");
+            repository.existsByIsbn("456");
+        }));
+
+        // verificação
+        Assertions.assertThat(exception)
+                .isInstanceOf(AssertionError.class)
+                .hasMessage("Expected at most 1 SQL statements, but 2 ran");
+    }
+}